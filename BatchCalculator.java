@@ -0,0 +1,210 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates a file of calculator expressions, one per line, for Cons' batch mode.
+ * The input is read in chunks of lines; each chunk is validated, compiled and evaluated on a ForkJoinPool
+ * worker while the reader moves on, and finished chunks are written to the output in input order, so output
+ * line N always belongs to input line N (blank lines stay blank). Only a bounded window of chunks is in flight,
+ * which keeps memory flat however large the file is.
+ * <p>
+ * Output lines are tab-separated: expression, result, then the even/odd split as the chosen mode shows it
+ * (ArrayList "[2.0, 4.0]", LinkedList "2.0 -> 4.0 -> null", Queue the input, even and odd queues by capacity).
+ * A line that fails gets "ERROR" and the reason instead of the result.
+ */
+public class BatchCalculator {
+    public static final int CHUNK_LINES = 4096;
+
+    public enum Mode { ARRAY_LIST, LINKED_LIST, QUEUE }
+
+    public record Report(long expressions, long errors, long elapsedNanos) {
+        public double expressionsPerSecond() {
+            return elapsedNanos == 0 ? 0 : expressions * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d expressions (%d errors) in %.2f s, %.0f expressions/s",
+                    expressions, errors, elapsedNanos / 1e9, expressionsPerSecond());
+        }
+    }
+
+    private record Chunk(String text, int expressions, int errors) {
+    }
+
+    private final Mode mode;
+    private final int inputCapacity;
+    private final int evenOddCapacity;
+    private final int parallelism;
+
+    /** The capacities only matter in Queue mode. */
+    public BatchCalculator(Mode mode, int inputCapacity, int evenOddCapacity, int parallelism) {
+        if (mode == Mode.QUEUE && (inputCapacity <= 0 || evenOddCapacity <= 0)) {
+            throw new IllegalArgumentException("Capacities must be positive.");
+        }
+        this.mode = mode;
+        this.inputCapacity = inputCapacity;
+        this.evenOddCapacity = evenOddCapacity;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public Report run(Path input, Path output) throws IOException {
+        long startedAt = System.nanoTime();
+        long expressions = 0, errors = 0;
+        ForkJoinPool workers = new ForkJoinPool(parallelism);
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            while (true) {
+                String[] lines = new String[CHUNK_LINES];
+                int count = 0;
+                String line;
+                while (count < CHUNK_LINES && (line = in.readLine()) != null) {
+                    lines[count++] = line;
+                }
+                if (count == 0) break;
+                if (inFlight.size() >= parallelism * 2) {
+                    Chunk done = write(inFlight.removeFirst(), out);
+                    expressions += done.expressions();
+                    errors += done.errors();
+                }
+                int n = count;
+                inFlight.addLast(workers.submit(() -> evaluateChunk(lines, n)));
+            }
+            while (!inFlight.isEmpty()) {
+                Chunk done = write(inFlight.removeFirst(), out);
+                expressions += done.expressions();
+                errors += done.errors();
+            }
+        } finally {
+            inFlight.forEach(f -> f.cancel(true));
+            workers.shutdownNow();
+        }
+        return new Report(expressions, errors, System.nanoTime() - startedAt);
+    }
+
+    private static Chunk write(Future<Chunk> future, Writer out) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch evaluation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch evaluation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        out.write(chunk.text());
+        return chunk;
+    }
+
+    private Chunk evaluateChunk(String[] lines, int count) {
+        StringBuilder text = new StringBuilder(count * 48);
+        int expressions = 0, errors = 0;
+        for (int i = 0; i < count; i++) {
+            String expr = lines[i].strip();
+            if (!expr.isEmpty()) {
+                expressions++;
+                if (!evaluateLine(expr, text)) errors++;
+            }
+            text.append('\n');
+        }
+        return new Chunk(text.toString(), expressions, errors);
+    }
+
+    /** Appends one output line (without the newline); false if the expression was rejected. */
+    private boolean evaluateLine(String expr, StringBuilder out) {
+        out.append(expr).append('\t');
+        long validation = ExpressionValidator.validate(expr);
+        if (validation != ExpressionValidator.VALID) {
+            out.append("ERROR\t").append(ExpressionValidator.error(validation).message())
+                    .append(" at position ").append(ExpressionValidator.position(validation));
+            return false;
+        }
+        CompiledExpression compiled;
+        double result;
+        try {
+            compiled = CompiledExpression.parse(expr); // uncached: a batch would only churn the shared cache
+            result = compiled.evaluate();
+        } catch (RuntimeException e) {
+            out.append("ERROR\t").append(e.getMessage());
+            return false;
+        }
+        out.append(result);
+        switch (mode) {
+            case ARRAY_LIST:
+                out.append('\t');
+                appendList(compiled, true, out);
+                out.append('\t');
+                appendList(compiled, false, out);
+                break;
+            case LINKED_LIST:
+                out.append('\t');
+                appendChain(compiled, true, out);
+                out.append('\t');
+                appendChain(compiled, false, out);
+                break;
+            default:
+                out.append('\t');
+                appendQueues(compiled, null, inputCapacity, out);
+                out.append('\t');
+                appendQueues(compiled, true, evenOddCapacity, out);
+                out.append('\t');
+                appendQueues(compiled, false, evenOddCapacity, out);
+        }
+        return true;
+    }
+
+    /** The numbers of one parity as ArrayList.toString() prints them. */
+    private static void appendList(CompiledExpression compiled, boolean even, StringBuilder out) {
+        out.append('[');
+        boolean first = true;
+        for (int i = 0; i < compiled.numberCount(); i++) {
+            double number = compiled.number(i);
+            if (CompiledExpression.isEven(number) != even) continue;
+            if (!first) out.append(", ");
+            out.append(number);
+            first = false;
+        }
+        out.append(']');
+    }
+
+    /** The numbers of one parity as Cons prints a LinkedList. */
+    private static void appendChain(CompiledExpression compiled, boolean even, StringBuilder out) {
+        for (int i = 0; i < compiled.numberCount(); i++) {
+            double number = compiled.number(i);
+            if (CompiledExpression.isEven(number) == even) out.append(number).append(" -> ");
+        }
+        out.append("null");
+    }
+
+    /**
+     * The numbers (all of them when parity is null, else one parity) split into queues of the given capacity,
+     * printed as the list of queues would print: "[[1.0, 2.0], [3.0]]".
+     */
+    private static void appendQueues(CompiledExpression compiled, Boolean parity, int capacity, StringBuilder out) {
+        out.append('[');
+        int inQueue = 0;
+        for (int i = 0; i < compiled.numberCount(); i++) {
+            double number = compiled.number(i);
+            if (parity != null && CompiledExpression.isEven(number) != parity) continue;
+            if (inQueue == capacity) {
+                out.append("], ");
+                inQueue = 0;
+            }
+            out.append(inQueue == 0 ? "[" : ", ").append(number);
+            inQueue++;
+        }
+        if (inQueue > 0) out.append(']');
+        out.append(']');
+    }
+}
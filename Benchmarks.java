@@ -0,0 +1,238 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Micro-benchmarks for the calculator and data-access hot paths, runnable offline with nothing but a JDK:
+ *
+ *   java Benchmarks [--out results.json] [--warmup 3] [--iterations 5] [--time-ms 1000]
+ *                   [--db jdbc:h2:mem:bench;MODE=MySQL --db-user sa --db-password ""]
+ *
+ * Each benchmark runs warmup iterations, then timed iterations of about time-ms each, and reports the average
+ * time per operation with its spread. Results are written as JSON (one object per benchmark and parameter set,
+ * in the shape JMH's -rf json uses for primaryMetric), so runs of two versions can be diffed or compared by a
+ * script. The database benchmarks only run with --db: point it at an in-process database whose driver is on
+ * the classpath (H2 in MySQL mode understands DatabaseHelper's backtick quoting) so no MySQL server is needed.
+ */
+public class Benchmarks {
+
+    /** One operation of a benchmark; returns something derived from its work so the JIT can't drop it. */
+    @FunctionalInterface
+    private interface Operation {
+        double run() throws Exception;
+    }
+
+    private record Result(String name, Map<String, String> params, double[] nanosPerOp) {
+        double mean() {
+            double sum = 0;
+            for (double v : nanosPerOp) sum += v;
+            return sum / nanosPerOp.length;
+        }
+
+        double stdDev() {
+            if (nanosPerOp.length < 2) return 0;
+            double mean = mean(), sum = 0;
+            for (double v : nanosPerOp) sum += (v - mean) * (v - mean);
+            return Math.sqrt(sum / (nanosPerOp.length - 1));
+        }
+    }
+
+    private static volatile double sink; // every operation's result ends up here
+
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final long iterationNanos;
+    private final List<Result> results = new ArrayList<>();
+
+    private Benchmarks(int warmupIterations, int measuredIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        Benchmarks bench = new Benchmarks(Integer.parseInt(options.getOrDefault("--warmup", "3")),
+                Integer.parseInt(options.getOrDefault("--iterations", "5")),
+                Long.parseLong(options.getOrDefault("--time-ms", "1000")));
+
+        bench.calculatorBenchmarks();
+        String dbUrl = options.get("--db");
+        if (dbUrl != null) {
+            bench.databaseBenchmarks(dbUrl, options.getOrDefault("--db-user", ""), options.getOrDefault("--db-password", ""));
+        } else {
+            System.out.println("(database benchmarks skipped: no --db given)");
+        }
+
+        Path out = Paths.get(options.getOrDefault("--out", "benchmark-results.json"));
+        bench.writeJson(out);
+        System.out.println("Results written to " + out.toAbsolutePath());
+    }
+
+    private void calculatorBenchmarks() throws Exception {
+        for (int terms : new int[]{8, 64, 512}) {
+            for (int depth : new int[]{1, 8, 32}) {
+                String expr = expression(terms, depth, new Random(terms * 31L + depth));
+                Map<String, String> params = params("terms", terms, "depth", depth, "length", expr.length());
+                // Cons.evaluateExpression on a miss: compile, then evaluate.
+                measure("evaluate.compileAndRun", params, () -> CompiledExpression.parse(expr).evaluate());
+                CompiledExpression compiled = CompiledExpression.parse(expr);
+                measure("evaluate.compiled", params, compiled::evaluate);
+                ResultCache cache = new ResultCache(16);
+                cache.evaluate(expr);
+                measure("evaluate.cacheHit", params, () -> cache.evaluate(expr).value());
+                measure("validate", params, () -> ExpressionValidator.validate(expr));
+                measure("normalize", params, () -> CompiledExpression.normalize(expr).length());
+            }
+        }
+        for (int numbers : new int[]{16, 256, 4096}) {
+            String expr = expression(numbers, 1, new Random(numbers));
+            CompiledExpression compiled = CompiledExpression.parse(expr);
+            for (int capacity : new int[]{4, 64}) {
+                // The Queue mode pipeline: numbers into input queues, then split into even and odd queues.
+                measure("queueMode", params("numbers", numbers, "capacity", capacity), () -> {
+                    DoubleChunkQueue input = new DoubleChunkQueue(capacity);
+                    DoubleChunkQueue even = new DoubleChunkQueue(capacity);
+                    DoubleChunkQueue odd = new DoubleChunkQueue(capacity);
+                    for (int i = 0; i < compiled.numberCount(); i++) {
+                        input.add(compiled.number(i));
+                    }
+                    for (int i = 0; i < input.size(); i++) {
+                        double number = input.get(i);
+                        if (CompiledExpression.isEven(number)) even.add(number); else odd.add(number);
+                    }
+                    return even.chunkCount() + odd.chunkCount();
+                });
+            }
+        }
+    }
+
+    private void databaseBenchmarks(String url, String user, String password) throws Exception {
+        ConnectionPool.configureShared(url, user, password);
+        DatabaseHelper helper = new DatabaseHelper();
+        int rows = 10_000;
+        try (Connection conn = ConnectionPool.getShared().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS bench_rows");
+            stmt.execute("CREATE TABLE bench_rows (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(64), amount DOUBLE)");
+            stmt.execute("INSERT INTO bench_rows (name, amount) SELECT CONCAT('row', x), x * 1.5 FROM SYSTEM_RANGE(1, " + rows + ")");
+        }
+        Random random = new Random(42);
+        for (int pageSize : new int[]{50, 500}) {
+            measure("db.getTablePage", params("rows", rows, "pageSize", pageSize), () -> {
+                String after = Integer.toString(random.nextInt(rows - pageSize));
+                return helper.getTablePage("bench_rows", "id", after, null, 0, pageSize).getRowCount();
+            });
+        }
+        measure("db.getColumnNames", params("rows", rows), () -> helper.getColumnNames("bench_rows").size());
+        Map<String, String> row = new LinkedHashMap<>();
+        measure("db.insertRow", params("rows", rows), () -> {
+            row.put("name", "bench");
+            row.put("amount", Double.toString(random.nextDouble()));
+            helper.insertRow("bench_rows", row);
+            return 1;
+        });
+        try (Connection conn = ConnectionPool.getShared().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE bench_rows");
+        } catch (SQLException e) {
+            // the in-memory database goes away with the JVM anyway
+        }
+        ConnectionPool.shutdownShared();
+    }
+
+    private void measure(String name, Map<String, String> params, Operation op) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(op);
+        }
+        double[] nanosPerOp = new double[measuredIterations];
+        for (int i = 0; i < measuredIterations; i++) {
+            nanosPerOp[i] = iteration(op);
+        }
+        Result result = new Result(name, params, nanosPerOp);
+        results.add(result);
+        System.out.printf(Locale.ROOT, "%-24s %-44s %14.1f ± %.1f ns/op%n", name, params, result.mean(), result.stdDev());
+    }
+
+    /** Runs the operation in growing batches until the iteration time is used up; returns ns per operation. */
+    private double iteration(Operation op) throws Exception {
+        long ops = 0, batch = 1;
+        double acc = 0;
+        long start = System.nanoTime(), elapsed;
+        do {
+            for (long i = 0; i < batch; i++) {
+                acc += op.run();
+            }
+            ops += batch;
+            batch = Math.min(batch * 2, 1 << 16);
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        sink = acc;
+        return (double) elapsed / ops;
+    }
+
+    /** A random expression with the given number of literals, parentheses nested up to depth levels deep. */
+    private static String expression(int terms, int depth, Random random) {
+        StringBuilder out = new StringBuilder();
+        int open = 0;
+        for (int i = 0; i < terms; i++) {
+            if (i > 0) out.append("+-*".charAt(random.nextInt(3)));
+            if (open < depth - 1 && i < terms - 1 && random.nextInt(3) == 0) {
+                out.append('(');
+                open++;
+            }
+            out.append(1 + random.nextInt(99));
+            if (open > 0 && random.nextInt(4) == 0) {
+                out.append(')');
+                open--;
+            }
+        }
+        while (open-- > 0) out.append(')');
+        return out.toString();
+    }
+
+    private static Map<String, String> params(Object... keyValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            params.put(String.valueOf(keyValues[i]), String.valueOf(keyValues[i + 1]));
+        }
+        return params;
+    }
+
+    private void writeJson(Path out) throws IOException {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int r = 0; r < results.size(); r++) {
+            Result result = results.get(r);
+            json.append("  {\"benchmark\": \"").append(result.name()).append("\", \"mode\": \"avgt\", \"params\": {");
+            int p = 0;
+            for (Map.Entry<String, String> param : result.params().entrySet()) {
+                if (p++ > 0) json.append(", ");
+                json.append('"').append(param.getKey()).append("\": \"").append(param.getValue()).append('"');
+            }
+            json.append("}, \"primaryMetric\": {\"score\": ").append(String.format(Locale.ROOT, "%.3f", result.mean()))
+                    .append(", \"scoreError\": ").append(String.format(Locale.ROOT, "%.3f", result.stdDev()))
+                    .append(", \"scoreUnit\": \"ns/op\", \"rawData\": [");
+            for (int i = 0; i < result.nanosPerOp().length; i++) {
+                if (i > 0) json.append(", ");
+                json.append(String.format(Locale.ROOT, "%.3f", result.nanosPerOp()[i]));
+            }
+            json.append("]}}").append(r < results.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("]\n");
+        Files.writeString(out, json, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,365 @@
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk-load mode for DatabaseManager's INSERT command. INSERT statements for one table are parsed into rows
+ * and written in chunks; for every chunk:
+ * 1. the primary keys that already exist are fetched with a single SELECT ... WHERE pk IN (...),
+ * 2. only the new rows are sent as one multi-row INSERT,
+ * 3. the chunk is committed and its timing reported.
+ * That is two round trips per chunk instead of two per row. Statements whose values are not plain literals
+ * (e.g. NOW()) are executed as written, in their original order.
+ */
+public class BulkInserter {
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    public record Report(long parsedRows, long existingRows, long insertedRows, long statementsRunAsIs, long elapsedNanos) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : parsedRows * 1e9 / elapsedNanos;
+        }
+    }
+
+    /** A parsed INSERT: target table, column list (null when the statement has none) and literal rows. */
+    record ParsedInsert(String table, List<String> columns, List<List<String>> rows) {}
+
+    /** A statement from the file: whether it inserts into this loader's table, and its rows if they are literals. */
+    record PreparedInsert(String sql, boolean forTable, ParsedInsert insert) {}
+
+    private final Connection connection;
+    private final String tableName;
+    private final String primaryKeyColumn;
+    private final int chunkSize;
+    private final Consumer<String> progress;
+
+    private List<String> tableColumns;
+    private Map<String, Integer> columnTypes; // JDBC type of each column, for ColumnCodec
+    private List<String> chunkColumns;
+    private final List<List<String>> chunk = new ArrayList<>();
+    private int chunkNumber;
+    private long parsedRows;
+    private long existingRows;
+    private long insertedRows;
+    private long statementsRunAsIs;
+    private final long startedAt = System.nanoTime();
+
+    /**
+     * The caller owns the connection; it is switched to manual commit for the duration of the load and
+     * restored by {@link #finish()}.
+     */
+    public BulkInserter(Connection connection, String tableName, String primaryKeyColumn, int chunkSize,
+                        Consumer<String> progress) throws SQLException {
+        this.connection = connection;
+        this.tableName = tableName;
+        this.primaryKeyColumn = primaryKeyColumn;
+        this.chunkSize = chunkSize;
+        this.progress = progress;
+        connection.setAutoCommit(false);
+    }
+
+    /** Feeds one SQL statement; anything that is not an INSERT into this loader's table is ignored. */
+    public void addStatement(String sql) throws SQLException {
+        add(prepare(sql));
+    }
+
+    /**
+     * Parses a statement without touching the connection or this loader's state, so it can run on loader
+     * threads ahead of {@link #add(PreparedInsert)}.
+     */
+    public PreparedInsert prepare(String sql) {
+        boolean forTable = startsWithInsertInto(sql, tableName);
+        return new PreparedInsert(sql, forTable, forTable ? parseInsert(sql) : null);
+    }
+
+    /** Feeds a statement parsed by {@link #prepare(String)}; statements must be added in file order. */
+    public void add(PreparedInsert statement) throws SQLException {
+        if (!statement.forTable()) {
+            return;
+        }
+        String sql = statement.sql();
+        ParsedInsert insert = statement.insert();
+        if (insert == null) {
+            flushChunk();
+            try (Statement stmt = connection.createStatement()) {
+                insertedRows += stmt.executeUpdate(sql);
+            }
+            connection.commit();
+            statementsRunAsIs++;
+            return;
+        }
+        List<String> columns = insert.columns() != null ? insert.columns() : getTableColumns();
+        if (chunkColumns != null && !chunkColumns.equals(columns)) {
+            flushChunk(); // one multi-row INSERT needs one column list
+        }
+        chunkColumns = columns;
+        for (List<String> row : insert.rows()) {
+            if (row.size() != columns.size()) {
+                throw new SQLException("Column count doesn't match value count in: " + sql);
+            }
+            chunk.add(row);
+            parsedRows++;
+            if (chunk.size() >= chunkSize) {
+                flushChunk();
+            }
+        }
+    }
+
+    /** Writes the last partial chunk, restores auto-commit and returns the totals. */
+    public Report finish() throws SQLException {
+        try {
+            flushChunk();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return new Report(parsedRows, existingRows, insertedRows, statementsRunAsIs, System.nanoTime() - startedAt);
+    }
+
+    /** Abandons the current chunk after a failure; rows of earlier chunks stay committed. */
+    public void abort() {
+        chunk.clear();
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            // The load already failed; the original error is the one worth reporting.
+        }
+    }
+
+    private void flushChunk() throws SQLException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int keyIndex = indexOfIgnoreCase(chunkColumns, primaryKeyColumn);
+
+        List<List<String>> fresh = chunk;
+        int existing = 0;
+        if (keyIndex >= 0) {
+            Set<String> existingKeys = fetchExistingKeys(keyIndex);
+            Set<String> seen = new HashSet<>();
+            fresh = new ArrayList<>(chunk.size());
+            for (List<String> row : chunk) {
+                String key = normalizeKey(row.get(keyIndex));
+                if (key != null && (existingKeys.contains(key) || !seen.add(key))) {
+                    existing++; // already in the table, or repeated within this chunk
+                } else {
+                    fresh.add(row);
+                }
+            }
+        }
+
+        int inserted = fresh.isEmpty() ? 0 : insertRows(fresh);
+        connection.commit();
+
+        chunkNumber++;
+        existingRows += existing;
+        insertedRows += inserted;
+        progress.accept(String.format("  chunk %d: %d row(s), %d already present, %d inserted in %.1f ms",
+                chunkNumber, chunk.size(), existing, inserted, (System.nanoTime() - start) / 1e6));
+        chunk.clear();
+    }
+
+    /** Keys of the chunk that are already in the table, normalized with {@link #normalizeKey(String)}. */
+    private Set<String> fetchExistingKeys(int keyIndex) throws SQLException {
+        List<String> keys = chunk.stream().map(r -> r.get(keyIndex)).filter(k -> k != null).distinct().collect(Collectors.toList());
+        Set<String> existing = new HashSet<>();
+        if (keys.isEmpty()) {
+            return existing;
+        }
+        String sql = "SELECT `" + primaryKeyColumn + "` FROM `" + tableName + "` WHERE `" + primaryKeyColumn + "` IN ("
+                + String.join(",", Collections.nCopies(keys.size(), "?")) + ")";
+        int keyType = ColumnCodec.typeOf(getColumnTypes(), primaryKeyColumn);
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < keys.size(); i++) {
+                ColumnCodec.bind(stmt, i + 1, keys.get(i), keyType);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(normalizeKey(rs.getString(1)));
+                }
+            }
+        }
+        return existing;
+    }
+
+    private int insertRows(List<List<String>> rows) throws SQLException {
+        String columnList = chunkColumns.stream().map(c -> "`" + c + "`").collect(Collectors.joining(", "));
+        String tuple = "(" + String.join(", ", Collections.nCopies(chunkColumns.size(), "?")) + ")";
+        String sql = "INSERT INTO `" + tableName + "` (" + columnList + ") VALUES "
+                + String.join(", ", Collections.nCopies(rows.size(), tuple));
+        Map<String, Integer> types = getColumnTypes();
+        int[] bindTypes = chunkColumns.stream().mapToInt(c -> ColumnCodec.typeOf(types, c)).toArray();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (List<String> row : rows) {
+                for (int c = 0; c < row.size(); c++) {
+                    ColumnCodec.bind(stmt, index++, row.get(c), bindTypes[c]);
+                }
+            }
+            return stmt.executeUpdate();
+        }
+    }
+
+    private Map<String, Integer> getColumnTypes() throws SQLException {
+        if (columnTypes == null) {
+            columnTypes = ColumnCodec.columnTypes(connection, tableName);
+        }
+        return columnTypes;
+    }
+
+    private List<String> getTableColumns() throws SQLException {
+        if (tableColumns == null) {
+            tableColumns = new ArrayList<>();
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT * FROM `" + tableName + "` LIMIT 0")) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    tableColumns.add(metaData.getColumnName(i));
+                }
+            }
+        }
+        return tableColumns;
+    }
+
+    //<editor-fold desc="Parsing">
+    static boolean startsWithInsertInto(String sql, String tableName) {
+        String[] words = sql.trim().split("\\s+", 4);
+        return words.length >= 3
+                && words[0].equalsIgnoreCase("INSERT")
+                && words[1].equalsIgnoreCase("INTO")
+                && words[2].replace("`", "").split("\\(", 2)[0].equalsIgnoreCase(tableName);
+    }
+
+    /**
+     * Parses INSERT INTO t [(c1, c2, ...)] VALUES (v, ...)[, (v, ...)]... where every value is a quoted string,
+     * a number, NULL, TRUE or FALSE. Returns null for anything else, which callers execute unchanged.
+     */
+    static ParsedInsert parseInsert(String sql) {
+        String upper = sql.toUpperCase(Locale.ROOT);
+        int valuesAt = indexOfKeyword(upper, "VALUES");
+        if (valuesAt < 0) return null;
+
+        String head = sql.substring(0, valuesAt).trim();
+        int into = indexOfKeyword(head.toUpperCase(Locale.ROOT), "INTO");
+        if (into < 0) return null;
+        String target = head.substring(into + 4).trim();
+        List<String> columns = null;
+        int paren = target.indexOf('(');
+        String table = (paren >= 0 ? target.substring(0, paren) : target).trim().replace("`", "");
+        if (paren >= 0) {
+            if (!target.endsWith(")")) return null;
+            columns = new ArrayList<>();
+            for (String column : target.substring(paren + 1, target.length() - 1).split(",")) {
+                columns.add(column.trim().replace("`", ""));
+            }
+        }
+
+        List<List<String>> rows = new ArrayList<>();
+        String values = sql.substring(valuesAt + 6);
+        int i = 0;
+        int n = values.length();
+        while (true) {
+            while (i < n && (Character.isWhitespace(values.charAt(i)) || values.charAt(i) == ',')) i++;
+            if (i >= n || values.charAt(i) == ';') break;
+            if (values.charAt(i) != '(') return null;
+            i++;
+            List<String> row = new ArrayList<>();
+            while (true) {
+                while (i < n && Character.isWhitespace(values.charAt(i))) i++;
+                if (i >= n) return null;
+                char c = values.charAt(i);
+                if (c == '\'' || c == '"') {
+                    StringBuilder literal = new StringBuilder();
+                    i++;
+                    while (true) {
+                        if (i >= n) return null;
+                        char d = values.charAt(i++);
+                        if (d == '\\' && i < n) {
+                            literal.append(unescape(values.charAt(i++)));
+                        } else if (d == c && i < n && values.charAt(i) == c) {
+                            literal.append(c); // doubled quote
+                            i++;
+                        } else if (d == c) {
+                            break;
+                        } else {
+                            literal.append(d);
+                        }
+                    }
+                    row.add(literal.toString());
+                } else {
+                    int start = i;
+                    while (i < n && values.charAt(i) != ',' && values.charAt(i) != ')' && !Character.isWhitespace(values.charAt(i))) i++;
+                    String token = values.substring(start, i);
+                    if (token.equalsIgnoreCase("NULL")) row.add(null);
+                    else if (token.equalsIgnoreCase("TRUE")) row.add("1");
+                    else if (token.equalsIgnoreCase("FALSE")) row.add("0");
+                    else if (token.matches("[-+]?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?")) row.add(token);
+                    else return null; // an expression or function call
+                }
+                while (i < n && Character.isWhitespace(values.charAt(i))) i++;
+                if (i >= n) return null;
+                char sep = values.charAt(i++);
+                if (sep == ')') break;
+                if (sep != ',') return null;
+            }
+            rows.add(row);
+        }
+        return rows.isEmpty() ? null : new ParsedInsert(table, columns, rows);
+    }
+
+    private static char unescape(char c) {
+        switch (c) {
+            case 'n': return '\n';
+            case 't': return '\t';
+            case 'r': return '\r';
+            case '0': return '\0';
+            default: return c;
+        }
+    }
+
+    private static int indexOfKeyword(String upperSql, String keyword) {
+        int from = 0;
+        while (true) {
+            int at = upperSql.indexOf(keyword, from);
+            if (at < 0) return -1;
+            boolean startOk = at == 0 || !Character.isLetterOrDigit(upperSql.charAt(at - 1));
+            int end = at + keyword.length();
+            boolean endOk = end >= upperSql.length() || !Character.isLetterOrDigit(upperSql.charAt(end));
+            if (startOk && endOk) return at;
+            from = at + 1;
+        }
+    }
+
+    private static int indexOfIgnoreCase(List<String> values, String wanted) {
+        for (int i = 0; wanted != null && i < values.size(); i++) {
+            if (values.get(i).equalsIgnoreCase(wanted)) return i;
+        }
+        return -1;
+    }
+
+    /** The file may spell a numeric key differently from how MySQL prints it (7 vs 7.00); compare numbers by value. */
+    private static String normalizeKey(String key) {
+        if (key == null || key.isEmpty() || !(Character.isDigit(key.charAt(0)) || key.charAt(0) == '-' || key.charAt(0) == '.')) {
+            return key;
+        }
+        try {
+            return new BigDecimal(key).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return key;
+        }
+    }
+    //</editor-fold>
+}
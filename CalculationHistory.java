@@ -0,0 +1,178 @@
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Queries on Cons' calculation_history, all answered by MySQL from the secondary indexes:
+ * - idx_history_time (calculated_at, id) for browsing everything newest first,
+ * - idx_history_mode_time (calculation_mode, calculated_at, id) for browsing or counting one mode.
+ * Browsing is keyset-paginated on (calculated_at, id): the next page continues strictly after the last row
+ * shown, the previous page strictly before the first, so any page costs one index range scan of pageSize
+ * rows however deep the user has browsed. Filters narrow by mode and a half-open [from, to) time range.
+ */
+public class CalculationHistory {
+
+    public record Entry(int id, String expression, double result, String mode, Timestamp calculatedAt) {}
+
+    /** Any field may be null, meaning "no restriction". */
+    public record Filter(String mode, Timestamp from, Timestamp to) {
+        public static final Filter NONE = new Filter(null, null, null);
+
+        @Override
+        public String toString() {
+            if (mode == null && from == null && to == null) return "all calculations";
+            return (mode == null ? "all modes" : "mode " + mode)
+                    + (from == null ? "" : ", from " + from)
+                    + (to == null ? "" : ", before " + to);
+        }
+    }
+
+    public record ModeStats(String mode, long count, double average, double min, double max) {}
+
+    private static final String TABLE = "calculation_history";
+    private static final String[][] INDEXES = {
+            {"idx_history_time", "calculated_at, id"},
+            {"idx_history_mode_time", "calculation_mode, calculated_at, id"},
+    };
+
+    private final Connection connection;
+
+    public CalculationHistory(Connection connection) {
+        this.connection = connection;
+    }
+
+    /** Creates the table with its indexes, and adds the indexes to a table created before they existed. */
+    public static void ensureSchema(Connection connection) throws SQLException {
+        String createTableSQL = "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY,"
+                + "expression VARCHAR(255) NOT NULL,"
+                + "result DOUBLE NOT NULL,"
+                + "calculation_mode VARCHAR(50) NOT NULL,"
+                + "calculated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
+                + "INDEX " + INDEXES[0][0] + " (" + INDEXES[0][1] + "),"
+                + "INDEX " + INDEXES[1][0] + " (" + INDEXES[1][1] + ")"
+                + ")";
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(createTableSQL);
+            Set<String> existing = new HashSet<>();
+            DatabaseMetaData meta = connection.getMetaData();
+            try (ResultSet rs = meta.getIndexInfo(connection.getCatalog(), null, TABLE, false, false)) {
+                while (rs.next()) {
+                    String name = rs.getString("INDEX_NAME");
+                    if (name != null) existing.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+            for (String[] index : INDEXES) {
+                if (!existing.contains(index[0])) {
+                    stmt.execute("CREATE INDEX " + index[0] + " ON " + TABLE + " (" + index[1] + ")");
+                }
+            }
+        }
+    }
+
+    /**
+     * One page, newest first. With a null cursor it is the newest page; otherwise it holds the rows just
+     * older than the cursor (older = true) or just newer than it (older = false).
+     */
+    public List<Entry> page(Filter filter, Entry cursor, boolean older, int pageSize) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT id, expression, result, calculation_mode, calculated_at FROM ")
+                .append(TABLE);
+        StringBuilder where = where(filter, params);
+        if (cursor != null) {
+            String cmp = older ? "<" : ">";
+            // Expanded rather than a row comparison, which MySQL doesn't turn into an index range.
+            where.append(where.length() == 0 ? " WHERE " : " AND ")
+                    .append("(calculated_at ").append(cmp).append(" ? OR (calculated_at = ? AND id ").append(cmp).append(" ?))");
+            params.add(cursor.calculatedAt());
+            params.add(cursor.calculatedAt());
+            params.add(cursor.id());
+        }
+        boolean descending = cursor == null || older;
+        String direction = descending ? "DESC" : "ASC";
+        sql.append(where).append(" ORDER BY calculated_at ").append(direction).append(", id ").append(direction)
+                .append(" LIMIT ?");
+        params.add(pageSize);
+
+        List<Entry> entries = new ArrayList<>(pageSize);
+        try (PreparedStatement pstmt = prepare(sql.toString(), params);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                entries.add(new Entry(rs.getInt(1), rs.getString(2), rs.getDouble(3), rs.getString(4), rs.getTimestamp(5)));
+            }
+        }
+        if (!descending) Collections.reverse(entries);
+        return entries;
+    }
+
+    /** The expressions of the latest rows, oldest of them first; served from idx_history_time. */
+    public List<String> recentExpressions(int limit) throws SQLException {
+        List<String> expressions = new ArrayList<>(limit);
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "SELECT expression FROM " + TABLE + " ORDER BY calculated_at DESC, id DESC LIMIT ?")) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    expressions.add(rs.getString(1));
+                }
+            }
+        }
+        Collections.reverse(expressions);
+        return expressions;
+    }
+
+    /** Count and result statistics per mode for the filtered rows, computed by a GROUP BY on the server. */
+    public List<ModeStats> stats(Filter filter) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT calculation_mode, COUNT(*), AVG(result), MIN(result), MAX(result) FROM " + TABLE
+                + where(filter, params) + " GROUP BY calculation_mode ORDER BY calculation_mode";
+        List<ModeStats> stats = new ArrayList<>();
+        try (PreparedStatement pstmt = prepare(sql, params);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                stats.add(new ModeStats(rs.getString(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4), rs.getDouble(5)));
+            }
+        }
+        return stats;
+    }
+
+    private static StringBuilder where(Filter filter, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.mode() != null) {
+            conditions.add("calculation_mode = ?");
+            params.add(filter.mode());
+        }
+        if (filter.from() != null) {
+            conditions.add("calculated_at >= ?");
+            params.add(filter.from());
+        }
+        if (filter.to() != null) {
+            conditions.add("calculated_at < ?");
+            params.add(filter.to());
+        }
+        return new StringBuilder(conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions));
+    }
+
+    private PreparedStatement prepare(String sql, List<Object> params) throws SQLException {
+        PreparedStatement pstmt = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+        } catch (SQLException e) {
+            pstmt.close();
+            throw e;
+        }
+        return pstmt;
+    }
+}
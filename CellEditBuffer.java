@@ -0,0 +1,168 @@
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind buffer for FxDb's inline cell edits. Edits are collected per table and per row (several
+ * edits of the same row become one UPDATE) and handed to the flusher as a Batch:
+ * - after a quiet period following the first unsaved edit,
+ * - as soon as the number of unsaved cells reaches the size threshold,
+ * - or when flush()/flushAll() is called (the "Save Changes" button, before other work on the table).
+ * Every change remembers the value the cell had when it was first edited, which lets the writer detect
+ * rows that were changed by someone else in the meantime. A batch that couldn't be written is requeued and
+ * retried with backoff: the quiet period doubles with each failure in a row, up to MAX_RETRY_DELAY.
+ * Used only from the JavaFX Application Thread.
+ */
+public class CellEditBuffer {
+
+    public record CellChange(String column, String originalValue, String newValue) {}
+
+    public record RowEdit(String keyValue, List<CellChange> changes) {}
+
+    public record Batch(String tableName, String keyColumn, List<RowEdit> rows) {
+        public int cellCount() {
+            return rows.stream().mapToInt(r -> r.changes().size()).sum();
+        }
+    }
+
+    private static final class PendingTable {
+        final String keyColumn;
+        // key value -> column -> change, both in edit order
+        final Map<String, Map<String, CellChange>> rows = new LinkedHashMap<>();
+
+        PendingTable(String keyColumn) {
+            this.keyColumn = keyColumn;
+        }
+    }
+
+    private static final Duration MAX_RETRY_DELAY = Duration.seconds(60);
+
+    private final Map<String, PendingTable> pending = new LinkedHashMap<>();
+    private final SimpleIntegerProperty pendingCount = new SimpleIntegerProperty(0);
+    private final SimpleIntegerProperty failedWrites = new SimpleIntegerProperty(0);
+    private final PauseTransition timer;
+    private final Duration flushDelay;
+    private final int flushThreshold;
+    private final Consumer<Batch> flusher;
+
+    public CellEditBuffer(Duration flushDelay, int flushThreshold, Consumer<Batch> flusher) {
+        this.flushDelay = flushDelay;
+        this.flushThreshold = flushThreshold;
+        this.flusher = flusher;
+        this.timer = new PauseTransition(flushDelay);
+        this.timer.setOnFinished(e -> flushAll());
+    }
+
+    /** Number of edited cells not yet handed to the flusher; FxDb binds its pending-changes label to it. */
+    public ReadOnlyIntegerProperty pendingCountProperty() {
+        return pendingCount;
+    }
+
+    /** Failed writes in a row since the last successful one; FxDb shows a retry status while it is above 0. */
+    public ReadOnlyIntegerProperty failedWritesProperty() {
+        return failedWrites;
+    }
+
+    public void stage(String tableName, String keyColumn, String keyValue, String column, String oldValue, String newValue) {
+        PendingTable table = pending.computeIfAbsent(tableName, t -> new PendingTable(keyColumn));
+        Map<String, CellChange> row = table.rows.computeIfAbsent(keyValue, k -> new LinkedHashMap<>());
+        CellChange previous = row.get(column);
+        String originalValue = previous != null ? previous.originalValue() : oldValue;
+        if (Objects.equals(originalValue, newValue)) {
+            row.remove(column); // edited back to what the database has
+        } else {
+            row.put(column, new CellChange(column, originalValue, newValue));
+        }
+        if (row.isEmpty()) table.rows.remove(keyValue);
+        if (table.rows.isEmpty()) pending.remove(tableName);
+
+        updateCount();
+        if (pendingCount.get() >= flushThreshold && failedWrites.get() == 0) { // while retrying, the backoff decides
+            flushAll();
+        } else if (pendingCount.get() > 0 && timer.getStatus() != Animation.Status.RUNNING) {
+            timer.playFromStart();
+        }
+    }
+
+    /** Hands the table's unsaved edits to the flusher, if it has any. */
+    public void flush(String tableName) {
+        PendingTable table = pending.remove(tableName);
+        updateCount();
+        if (table != null) {
+            flusher.accept(toBatch(tableName, table));
+        }
+    }
+
+    public void flushAll() {
+        timer.stop();
+        for (Batch batch : drainAll()) {
+            flusher.accept(batch);
+        }
+    }
+
+    /** Removes and returns every unsaved batch without flushing; used on shutdown to write synchronously. */
+    public List<Batch> drainAll() {
+        List<Batch> batches = new ArrayList<>();
+        pending.forEach((tableName, table) -> batches.add(toBatch(tableName, table)));
+        pending.clear();
+        updateCount();
+        return batches;
+    }
+
+    /**
+     * Puts back a batch whose write failed, to be retried after the backoff delay. Edits made since then win
+     * over the returned ones.
+     */
+    public void requeue(Batch batch) {
+        PendingTable table = pending.computeIfAbsent(batch.tableName(), t -> new PendingTable(batch.keyColumn()));
+        for (RowEdit rowEdit : batch.rows()) {
+            Map<String, CellChange> row = table.rows.computeIfAbsent(rowEdit.keyValue(), k -> new LinkedHashMap<>());
+            for (CellChange change : rowEdit.changes()) {
+                CellChange newer = row.get(change.column());
+                row.put(change.column(), newer == null ? change
+                        : new CellChange(change.column(), change.originalValue(), newer.newValue()));
+            }
+        }
+        failedWrites.set(failedWrites.get() + 1);
+        double delay = flushDelay.toMillis() * Math.pow(2, Math.min(failedWrites.get(), 16));
+        timer.setDuration(Duration.millis(Math.min(delay, MAX_RETRY_DELAY.toMillis())));
+        updateCount();
+        timer.playFromStart();
+    }
+
+    /** Called after a batch was written: ends the backoff, so edits are flushed after the normal delay again. */
+    public void writeSucceeded() {
+        if (failedWrites.get() > 0) {
+            failedWrites.set(0);
+            timer.setDuration(flushDelay);
+        }
+    }
+
+    private static Batch toBatch(String tableName, PendingTable table) {
+        List<RowEdit> rows = new ArrayList<>(table.rows.size());
+        table.rows.forEach((key, changes) -> rows.add(new RowEdit(key, List.copyOf(changes.values()))));
+        return new Batch(tableName, table.keyColumn, rows);
+    }
+
+    private void updateCount() {
+        int count = 0;
+        for (PendingTable table : pending.values()) {
+            for (Map<String, CellChange> row : table.rows.values()) {
+                count += row.size();
+            }
+        }
+        pendingCount.set(count);
+        if (count == 0) {
+            timer.stop();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Binds the text a user typed (or a grid cell shows) as a parameter of the column's own JDBC type: INT keys
+ * as int/long, DECIMAL as BigDecimal, DATE and DATETIME as LocalDate / LocalDateTime, and so on. MySQL then
+ * compares like with like, so `EMPNO = ?` is an index lookup with no implicit conversion of either side.
+ * It is the write-side counterpart of ColumnarTable, which reads the same types natively and formats them
+ * only when a cell is shown; text ColumnarTable produces always binds back to the value it came from.
+ * Text that doesn't parse as the column's type is bound as a string, leaving the conversion (or the error)
+ * to the server as before.
+ */
+public final class ColumnCodec {
+
+    private ColumnCodec() {
+    }
+
+    /** The JDBC type of every column of a table, keyed case-insensitively, from the metadata of an empty SELECT. */
+    public static Map<String, Integer> columnTypes(Connection connection, String tableName) throws SQLException {
+        Map<String, Integer> types = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM `" + tableName + "` LIMIT 0")) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                types.put(metaData.getColumnName(i), metaData.getColumnType(i));
+            }
+        }
+        return types;
+    }
+
+    /** Binds text to parameter index as jdbcType; null becomes SQL NULL. */
+    public static void bind(PreparedStatement stmt, int index, String text, int jdbcType) throws SQLException {
+        if (text == null) {
+            stmt.setNull(index, jdbcType);
+            return;
+        }
+        String value = text.trim();
+        try {
+            switch (jdbcType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    long number = Long.parseLong(value);
+                    if (number == (int) number) {
+                        stmt.setInt(index, (int) number);
+                    } else {
+                        stmt.setLong(index, number);
+                    }
+                    return;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    stmt.setBigDecimal(index, new BigDecimal(value));
+                    return;
+                case Types.REAL:
+                    stmt.setFloat(index, Float.parseFloat(value));
+                    return;
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    stmt.setDouble(index, Double.parseDouble(value));
+                    return;
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    if (value.equals("1") || value.equalsIgnoreCase("true")) {
+                        stmt.setBoolean(index, true);
+                        return;
+                    }
+                    if (value.equals("0") || value.equalsIgnoreCase("false")) {
+                        stmt.setBoolean(index, false);
+                        return;
+                    }
+                    break;
+                case Types.DATE:
+                    stmt.setObject(index, LocalDate.parse(value));
+                    return;
+                case Types.TIME:
+                    stmt.setObject(index, LocalTime.parse(value));
+                    return;
+                case Types.TIMESTAMP:
+                    // "2024-05-01 10:30:00[.123]" as MySQL and ColumnarTable print it
+                    stmt.setObject(index, LocalDateTime.parse(value.replace(' ', 'T')));
+                    return;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            // not a value of this type after all; let the server decide
+        }
+        stmt.setString(index, text);
+    }
+
+    /** The column's type, or VARCHAR for a column the map doesn't know (bound as plain text). */
+    public static int typeOf(Map<String, Integer> types, String column) {
+        Integer type = types.get(column);
+        return type == null ? Types.VARCHAR : type;
+    }
+}
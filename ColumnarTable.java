@@ -0,0 +1,571 @@
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented storage for the rows FxDb displays. Instead of one ObservableList of Strings per row,
+ * each column keeps its values in a single primitive array:
+ * - integer types in int[] / long[], DOUBLE in double[], REAL and FLOAT in float[];
+ * - DECIMAL as an unscaled long[] plus the column scale (exact, same text as getString());
+ * - DATE as epoch days in int[], DATETIME / TIMESTAMP as epoch microseconds in long[];
+ * - everything else as dictionary-encoded strings (int codes into a per-column dictionary);
+ * - NULLs in a per-column bitmap.
+ * Values are turned into display strings only when a cell asks for them. Rows are exposed to the
+ * TableView as tiny (table, index) views, see {@link #row(int)} and {@link #rows()}.
+ */
+public final class ColumnarTable {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final List<String> headers;
+    private final Column[] columns;
+    private int rowCount;
+    private ObservableList<List<String>> rowList;
+
+    private ColumnarTable(List<String> headers, Column[] columns) {
+        this.headers = List.copyOf(headers);
+        this.columns = columns;
+    }
+
+    /** Reads at most maxRows rows (or all of them when maxRows is negative) from the cursor's current position. */
+    public static ColumnarTable read(ResultSet rs, int maxRows) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        List<String> headers = new ArrayList<>(columnCount);
+        Column[] columns = new Column[columnCount];
+        int capacity = maxRows >= 0 ? Math.min(Math.max(maxRows, 1), 4096) : INITIAL_CAPACITY;
+        for (int i = 1; i <= columnCount; i++) {
+            headers.add(metaData.getColumnName(i));
+            columns[i - 1] = Column.forType(metaData, i, capacity);
+        }
+
+        ColumnarTable table = new ColumnarTable(headers, columns);
+        while ((maxRows < 0 || table.rowCount < maxRows) && rs.next()) {
+            int row = table.rowCount;
+            for (int c = 0; c < columnCount; c++) {
+                Column column = columns[c];
+                column.ensureCapacity(row + 1);
+                if (!column.read(rs, c + 1, row)) {
+                    // A value did not fit the primitive representation (e.g. a DECIMAL wider than a long).
+                    column = columns[c] = column.toStringColumn(row);
+                    column.ensureCapacity(row + 1);
+                    column.read(rs, c + 1, row);
+                }
+            }
+            table.rowCount++;
+        }
+        return table;
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /** The display text of one cell, formatted on demand; null for SQL NULL. */
+    public String getValue(int row, int column) {
+        checkRow(row);
+        Column c = columns[column];
+        return c.nulls.get(row) ? null : c.format(row);
+    }
+
+    /**
+     * Stores an edited value. Text that no longer fits the column's primitive type (say "n/a" in an INT
+     * column) turns that column into a string column rather than failing the edit.
+     */
+    public void setValue(int row, int column, String value) {
+        checkRow(row);
+        Column c = columns[column];
+        if (value == null) {
+            c.nulls.set(row);
+            return;
+        }
+        if (!c.parse(row, value)) {
+            c = columns[column] = c.toStringColumn(rowCount);
+            c.parse(row, value);
+        }
+        c.nulls.clear(row);
+    }
+
+    /**
+     * Appends the rows of another table read with the same columns (say, the next chunk of an IN list query).
+     * Meant for building a table before it is shown: listeners of {@link #rows()} are not notified.
+     */
+    public void append(ColumnarTable other) {
+        if (!other.headers.equals(headers)) {
+            throw new IllegalArgumentException("Columns differ: " + other.headers + " vs " + headers);
+        }
+        for (int r = 0; r < other.rowCount; r++) {
+            int row = rowCount;
+            for (Column column : columns) {
+                column.ensureCapacity(row + 1);
+            }
+            rowCount++;
+            for (int c = 0; c < columns.length; c++) {
+                setValue(row, c, other.getValue(r, c));
+            }
+        }
+    }
+
+    /** A lightweight view of one row; it holds no values of its own. */
+    public List<String> row(int row) {
+        checkRow(row);
+        return new RowView(this, row);
+    }
+
+    /** All rows as a read-only ObservableList, suitable for TableView.setItems(). */
+    public ObservableList<List<String>> rows() {
+        if (rowList == null) {
+            rowList = new ObservableListBase<>() {
+                @Override
+                public List<String> get(int index) {
+                    return row(index);
+                }
+
+                @Override
+                public int size() {
+                    return rowCount;
+                }
+            };
+        }
+        return rowList;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + rowCount + " rows");
+        }
+    }
+
+    /**
+     * A row is identified by its table and position, so equals/hashCode are O(1) and two rows holding the
+     * same values stay distinct (unlike List.equals). Writes go straight to the column arrays.
+     */
+    private static final class RowView extends AbstractList<String> {
+        private final ColumnarTable table;
+        private final int row;
+
+        RowView(ColumnarTable table, int row) {
+            this.table = table;
+            this.row = row;
+        }
+
+        @Override
+        public String get(int index) {
+            return table.getValue(row, index);
+        }
+
+        @Override
+        public String set(int index, String element) {
+            String previous = table.getValue(row, index);
+            table.setValue(row, index, element);
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return table.columns.length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RowView other && other.table == table && other.row == row;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(table) + row;
+        }
+    }
+
+    //<editor-fold desc="Column Implementations">
+    private abstract static class Column {
+        final BitSet nulls = new BitSet();
+
+        static Column forType(ResultSetMetaData md, int i, int capacity) throws SQLException {
+            switch (md.getColumnType(i)) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                    return new IntColumn(capacity);
+                case Types.INTEGER:
+                    return md.isSigned(i) ? new IntColumn(capacity) : new LongColumn(capacity);
+                case Types.BIGINT:
+                    return md.isSigned(i) ? new LongColumn(capacity) : new StringColumn(capacity);
+                case Types.REAL:
+                case Types.FLOAT:
+                    return new FloatColumn(capacity);
+                case Types.DOUBLE:
+                    return new DoubleColumn(capacity);
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    int scale = md.getScale(i);
+                    return md.getPrecision(i) <= 18 && scale >= 0 ? new DecimalColumn(capacity, scale) : new StringColumn(capacity);
+                case Types.DATE:
+                    return new DateColumn(capacity);
+                case Types.TIMESTAMP:
+                    return new DateTimeColumn(capacity);
+                default:
+                    return new StringColumn(capacity);
+            }
+        }
+
+        static int grow(int current, int needed) {
+            return Math.max(needed, current + (current >> 1) + 1);
+        }
+
+        /** Reads the cell at the cursor into slot row; false when the value does not fit this column type. */
+        abstract boolean read(ResultSet rs, int columnIndex, int row) throws SQLException;
+
+        /** Parses display text into slot row; false when the text does not fit this column type. */
+        abstract boolean parse(int row, String text);
+
+        abstract String format(int row);
+
+        abstract void ensureCapacity(int size);
+
+        StringColumn toStringColumn(int rowCount) {
+            StringColumn copy = new StringColumn(Math.max(rowCount, INITIAL_CAPACITY));
+            for (int r = 0; r < rowCount; r++) {
+                if (nulls.get(r)) {
+                    copy.nulls.set(r);
+                } else {
+                    copy.parse(r, format(r));
+                }
+            }
+            return copy;
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        int[] values;
+
+        IntColumn(int capacity) { values = new int[capacity]; }
+
+        @Override
+        boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            values[row] = rs.getInt(columnIndex);
+            if (rs.wasNull()) nulls.set(row);
+            return true;
+        }
+
+        @Override
+        boolean parse(int row, String text) {
+            try {
+                values[row] = Integer.parseInt(text.trim());
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        @Override
+        String format(int row) { return Integer.toString(values[row]); }
+
+        @Override
+        void ensureCapacity(int size) {
+            if (size > values.length) values = Arrays.copyOf(values, grow(values.length, size));
+        }
+    }
+
+    private static class LongColumn extends Column {
+        long[] values;
+
+        LongColumn(int capacity) { values = new long[capacity]; }
+
+        @Override
+        boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            values[row] = rs.getLong(columnIndex);
+            if (rs.wasNull()) nulls.set(row);
+            return true;
+        }
+
+        @Override
+        boolean parse(int row, String text) {
+            try {
+                values[row] = Long.parseLong(text.trim());
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        @Override
+        String format(int row) { return Long.toString(values[row]); }
+
+        @Override
+        void ensureCapacity(int size) {
+            if (size > values.length) values = Arrays.copyOf(values, grow(values.length, size));
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        double[] values;
+
+        DoubleColumn(int capacity) { values = new double[capacity]; }
+
+        @Override
+        boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            values[row] = rs.getDouble(columnIndex);
+            if (rs.wasNull()) nulls.set(row);
+            return true;
+        }
+
+        @Override
+        boolean parse(int row, String text) {
+            try {
+                values[row] = Double.parseDouble(text.trim());
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        @Override
+        String format(int row) {
+            double v = values[row];
+            return Double.isFinite(v) ? plain(Double.toString(v)) : Double.toString(v);
+        }
+
+        @Override
+        void ensureCapacity(int size) {
+            if (size > values.length) values = Arrays.copyOf(values, grow(values.length, size));
+        }
+
+        /**
+         * MySQL's text form of a floating-point value: the shortest digits that read back as the same value,
+         * never in exponent notation and without a trailing ".0" (1.1, 0.0001, 12345678.5, 3).
+         */
+        static String plain(String shortest) {
+            return new BigDecimal(shortest).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    /**
+     * REAL / FLOAT, kept single precision: the binary protocol (server-side prepared statements) delivers the
+     * float itself, and widening it to double would print 1.1 as 1.100000023841858.
+     */
+    private static final class FloatColumn extends Column {
+        float[] values;
+
+        FloatColumn(int capacity) { values = new float[capacity]; }
+
+        @Override
+        boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            values[row] = rs.getFloat(columnIndex);
+            if (rs.wasNull()) nulls.set(row);
+            return true;
+        }
+
+        @Override
+        boolean parse(int row, String text) {
+            try {
+                values[row] = Float.parseFloat(text.trim());
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        @Override
+        String format(int row) {
+            float v = values[row];
+            return Float.isFinite(v) ? DoubleColumn.plain(Float.toString(v)) : Float.toString(v);
+        }
+
+        @Override
+        void ensureCapacity(int size) {
+            if (size > values.length) values = Arrays.copyOf(values, grow(values.length, size));
+        }
+    }
+
+    /** DECIMAL(p, s) with p <= 18, held as the unscaled value so formatting is exact. */
+    private static final class DecimalColumn extends LongColumn {
+        private final int scale;
+
+        DecimalColumn(int capacity, int scale) {
+            super(capacity);
+            this.scale = scale;
+        }
+
+        @Override
+        boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            BigDecimal value = rs.getBigDecimal(columnIndex);
+            if (value == null) {
+                nulls.set(row);
+                return true;
+            }
+            return store(row, value);
+        }
+
+        @Override
+        boolean parse(int row, String text) {
+            try {
+                return store(row, new BigDecimal(text.trim()));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private boolean store(int row, BigDecimal value) {
+            try {
+                values[row] = value.setScale(scale).unscaledValue().longValueExact();
+                return true;
+            } catch (ArithmeticException e) {
+                return false; // more fractional digits than the column scale, or wider than a long
+            }
+        }
+
+        @Override
+        String format(int row) { return BigDecimal.valueOf(values[row], scale).toPlainString(); }
+    }
+
+    private static final class DateColumn extends Column {
+        int[] epochDays;
+
+        DateColumn(int capacity) { epochDays = new int[capacity]; }
+
+        @Override
+        boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            LocalDate date = rs.getObject(columnIndex, LocalDate.class);
+            if (date == null) {
+                nulls.set(row);
+            } else {
+                epochDays[row] = (int) date.toEpochDay();
+            }
+            return true;
+        }
+
+        @Override
+        boolean parse(int row, String text) {
+            try {
+                epochDays[row] = (int) LocalDate.parse(text.trim()).toEpochDay();
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        @Override
+        String format(int row) { return LocalDate.ofEpochDay(epochDays[row]).toString(); }
+
+        @Override
+        void ensureCapacity(int size) {
+            if (size > epochDays.length) epochDays = Arrays.copyOf(epochDays, grow(epochDays.length, size));
+        }
+    }
+
+    private static final class DateTimeColumn extends Column {
+        long[] epochMicros;
+
+        DateTimeColumn(int capacity) { epochMicros = new long[capacity]; }
+
+        @Override
+        boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            LocalDateTime dateTime = rs.getObject(columnIndex, LocalDateTime.class);
+            if (dateTime == null) {
+                nulls.set(row);
+            } else {
+                store(row, dateTime);
+            }
+            return true;
+        }
+
+        @Override
+        boolean parse(int row, String text) {
+            try {
+                store(row, LocalDateTime.parse(text.trim().replace(' ', 'T')));
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        private void store(int row, LocalDateTime dateTime) {
+            epochMicros[row] = dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+        }
+
+        @Override
+        String format(int row) {
+            long micros = epochMicros[row];
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                    (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+            String text = dateTime.toLocalDate() + " " + String.format("%02d:%02d:%02d",
+                    dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond());
+            int fraction = dateTime.getNano() / 1_000;
+            if (fraction != 0) {
+                String digits = String.format("%06d", fraction);
+                int end = digits.length();
+                while (digits.charAt(end - 1) == '0') end--;
+                text += "." + digits.substring(0, end);
+            }
+            return text;
+        }
+
+        @Override
+        void ensureCapacity(int size) {
+            if (size > epochMicros.length) epochMicros = Arrays.copyOf(epochMicros, grow(epochMicros.length, size));
+        }
+    }
+
+    /** Dictionary-encoded strings: repeated values such as JOB or LOC are stored once per column. */
+    private static final class StringColumn extends Column {
+        int[] codes;
+        final List<String> dictionary = new ArrayList<>();
+        final Map<String, Integer> codeOf = new HashMap<>();
+
+        StringColumn(int capacity) { codes = new int[capacity]; }
+
+        @Override
+        boolean read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            String value = rs.getString(columnIndex);
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                parse(row, value);
+            }
+            return true;
+        }
+
+        @Override
+        boolean parse(int row, String text) {
+            Integer code = codeOf.get(text);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(text);
+                codeOf.put(text, code);
+            }
+            codes[row] = code;
+            return true;
+        }
+
+        @Override
+        String format(int row) { return dictionary.get(codes[row]); }
+
+        @Override
+        void ensureCapacity(int size) {
+            if (size > codes.length) codes = Arrays.copyOf(codes, grow(codes.length, size));
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,266 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A calculator expression compiled once into postfix code, for Cons.
+ * compile() runs the same shunting-yard pass Cons used to run on every evaluation (whitespace ignored,
+ * implicit '*' in "2(3)", ")2" and ")(", a leading or post-operator '-' read as "0 -"), but instead of
+ * computing it emits one instruction per value pushed or operator applied. evaluate() then replays the
+ * instructions on a primitive double stack and allocates nothing.
+ * Compiled expressions are immutable and cached by their source text, so the Queue mode's number
+ * extraction and its evaluation share one parse.
+ */
+public final class CompiledExpression {
+    private static final int PUSH = 0, ADD = 1, SUB = 2, MUL = 3, DIV = 4;
+    private static final int OP_BITS = 3;
+    private static final int CACHE_SIZE = 1024;
+
+    private static final Map<String, CompiledExpression> CACHE = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private static final ThreadLocal<double[]> STACK = ThreadLocal.withInitial(() -> new double[16]);
+
+    private final int[] code;          // opcode in the low OP_BITS bits, constant index above them for PUSH
+    private final double[] constants;  // literal values, plus 0.0 for unary minus
+    private final double[] numbers;    // the literals in order of appearance, for the even/odd split
+    private final int maxDepth;
+
+    private CompiledExpression(int[] code, double[] constants, double[] numbers, int maxDepth) {
+        this.code = code;
+        this.constants = constants;
+        this.numbers = numbers;
+        this.maxDepth = maxDepth;
+    }
+
+    /** Returns the cached compiled form of the expression, compiling it on first use. */
+    public static CompiledExpression compile(String expression) {
+        synchronized (CACHE) {
+            CompiledExpression cached = CACHE.get(expression);
+            if (cached != null) return cached;
+        }
+        CompiledExpression compiled = new Compiler(expression).compile();
+        synchronized (CACHE) {
+            CACHE.put(expression, compiled);
+        }
+        return compiled;
+    }
+
+    /** Compiles without touching the cache, for one-off expressions such as a batch file's lines. */
+    public static CompiledExpression parse(String expression) {
+        return new Compiler(expression).compile();
+    }
+
+    /**
+     * The expression as compile() reads it: whitespace removed and the implicit '*' written out, so "2 (3)",
+     * "2(3)" and "2*(3)" all become "2*(3)". Expressions with the same normal form evaluate alike.
+     */
+    public static String normalize(String expression) {
+        String expr = Compiler.stripWhitespace(expression);
+        StringBuilder out = null;
+        char prev = 0;
+        for (int i = 0; i < expr.length(); i++) {
+            char c = expr.charAt(i);
+            if ((c == '(' && (Compiler.isAsciiDigit(prev) || prev == ')')) || (Compiler.isAsciiDigit(c) && prev == ')')) {
+                if (out == null) out = new StringBuilder(expr.length() + 4).append(expr, 0, i);
+                out.append('*');
+            }
+            if (out != null) out.append(c);
+            prev = c;
+        }
+        return out == null ? expr : out.toString();
+    }
+
+    public double evaluate() {
+        double[] stack = STACK.get();
+        if (stack.length < maxDepth) {
+            stack = new double[maxDepth];
+            STACK.set(stack);
+        }
+        int top = -1;
+        for (int instruction : code) {
+            int op = instruction & ((1 << OP_BITS) - 1);
+            if (op == PUSH) {
+                stack[++top] = constants[instruction >>> OP_BITS];
+                continue;
+            }
+            double b = stack[top--];
+            double a = stack[top];
+            switch (op) {
+                case ADD: stack[top] = a + b; break;
+                case SUB: stack[top] = a - b; break;
+                case MUL: stack[top] = a * b; break;
+                default:
+                    if (b == 0) throw new UnsupportedOperationException("Cannot divide by zero");
+                    stack[top] = a / b;
+            }
+        }
+        return stack[0];
+    }
+
+    /** Fills even and odd (cleared first) with the expression's numbers, as the list modes show them, and evaluates. */
+    public double evaluate(DoubleList even, DoubleList odd) {
+        even.clear();
+        odd.clear();
+        for (double number : numbers) {
+            if (isEven(number)) even.add(number); else odd.add(number);
+        }
+        return evaluate();
+    }
+
+    public int numberCount() {
+        return numbers.length;
+    }
+
+    public double number(int index) {
+        return numbers[index];
+    }
+
+    /** The calculator's parity rule: a number is even when it rounds to an even integer. */
+    public static boolean isEven(double number) {
+        return Math.round(number) % 2 == 0;
+    }
+
+    /** Single pass over the source; the operator stack lives in a char array, operands are only counted. */
+    private static final class Compiler {
+        private final String source;
+        private int[] code = new int[16];
+        private int codeLength;
+        private double[] constants = new double[8];
+        private int constantCount;
+        private double[] numbers = new double[8];
+        private int numberCount;
+        private char[] ops = new char[8];
+        private int opCount;
+        private int depth;
+        private int maxDepth;
+        private int zeroConstant = -1;
+
+        Compiler(String source) {
+            this.source = source;
+        }
+
+        CompiledExpression compile() {
+            String expr = stripWhitespace(source);
+            int n = expr.length();
+            char prev = 0; // previous character, counting an inserted implicit '*'
+            int i = 0;
+            while (i < n) {
+                char c = expr.charAt(i);
+                if ((c == '(' && (isAsciiDigit(prev) || prev == ')')) || (isAsciiDigit(c) && prev == ')')) {
+                    operator('*'); // implicit multiplication
+                    prev = '*';
+                }
+                if (Character.isDigit(c) || c == '.') {
+                    int start = i;
+                    while (i < n && (Character.isDigit(expr.charAt(i)) || expr.charAt(i) == '.')) i++;
+                    double number = Double.parseDouble(expr.substring(start, i));
+                    addNumber(number);
+                    push(constant(number));
+                    prev = expr.charAt(i - 1);
+                    continue;
+                }
+                if (c == '(') {
+                    pushOp(c);
+                } else if (c == ')') {
+                    while (true) {
+                        if (opCount == 0) throw new IllegalArgumentException("Invalid syntax: unmatched ')'.");
+                        char op = ops[opCount - 1];
+                        if (op == '(') break;
+                        opCount--;
+                        apply(op);
+                    }
+                    opCount--;
+                } else {
+                    if (c == '-' && (prev == 0 || "+-*/(".indexOf(prev) != -1)) {
+                        if (zeroConstant < 0) zeroConstant = constant(0.0);
+                        push(zeroConstant);
+                    }
+                    operator(c);
+                }
+                prev = c;
+                i++;
+            }
+            while (opCount > 0) {
+                apply(ops[--opCount]);
+            }
+            if (depth != 1) {
+                throw new IllegalArgumentException("Invalid expression: Leftover numbers.");
+            }
+            return new CompiledExpression(Arrays.copyOf(code, codeLength), Arrays.copyOf(constants, constantCount),
+                    Arrays.copyOf(numbers, numberCount), maxDepth);
+        }
+
+        /** Removes what the regex \\s matches, as the old replaceAll("\\s+", "") did. */
+        private static String stripWhitespace(String s) {
+            StringBuilder out = new StringBuilder(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\u000B' && c != '\f' && c != '\r') out.append(c);
+            }
+            return out.toString();
+        }
+
+        /** The old regex lookarounds used \\d, which only matches 0-9. */
+        private static boolean isAsciiDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        /** A binary operator: first applies the stacked operators of higher or equal precedence. */
+        private void operator(char c) {
+            while (opCount > 0 && precedence(ops[opCount - 1]) >= precedence(c)) {
+                apply(ops[--opCount]);
+            }
+            pushOp(c);
+        }
+
+        private void apply(char op) {
+            if (depth < 2) throw new IllegalArgumentException("Invalid syntax near '" + op + "'.");
+            int opcode;
+            switch (op) {
+                case '+': opcode = ADD; break;
+                case '-': opcode = SUB; break;
+                case '*': opcode = MUL; break;
+                case '/': opcode = DIV; break;
+                default: throw new IllegalArgumentException("Invalid operator: " + op);
+            }
+            emit(opcode);
+            depth--;
+        }
+
+        private void push(int constantIndex) {
+            emit(PUSH | (constantIndex << OP_BITS));
+            maxDepth = Math.max(maxDepth, ++depth);
+        }
+
+        private void emit(int instruction) {
+            if (codeLength == code.length) code = Arrays.copyOf(code, codeLength * 2);
+            code[codeLength++] = instruction;
+        }
+
+        private int constant(double value) {
+            if (constantCount == constants.length) constants = Arrays.copyOf(constants, constantCount * 2);
+            constants[constantCount] = value;
+            return constantCount++;
+        }
+
+        private void addNumber(double number) {
+            if (numberCount == numbers.length) numbers = Arrays.copyOf(numbers, numberCount * 2);
+            numbers[numberCount++] = number;
+        }
+
+        private void pushOp(char op) {
+            if (opCount == ops.length) ops = Arrays.copyOf(ops, opCount * 2);
+            ops[opCount++] = op;
+        }
+
+        private static int precedence(char op) {
+            if (op == '+' || op == '-') return 1;
+            if (op == '*' || op == '/') return 2;
+            return 0;
+        }
+    }
+}
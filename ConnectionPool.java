@@ -0,0 +1,653 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * A small bounded JDBC connection pool shared by DatabaseHelper (FxDb), DatabaseManager and Cons.
+ * Connections handed out are proxies: calling close() returns the physical connection to the pool
+ * instead of tearing down the TCP session, so callers keep using plain try-with-resources.
+ * Each physical connection also keeps its most recently used PreparedStatements (LRU, keyed by SQL text):
+ * closing one hands it back for the next prepareStatement() of the same SQL, so with the driver's server-side
+ * prepared statements a repeated insert, edit or lookup is neither re-parsed nor re-planned by MySQL.
+ */
+public class ConnectionPool {
+    private static final String JDBC_URL = "jdbc:mysql://localhost:3306/crudop?createDatabaseIfNotExist=true&allowMultiQueries=true&serverTimezone=UTC"
+            + "&useServerPrepStmts=true";
+    private static final String USER = "root";
+    // SECURITY NOTE: Hardcoding passwords is a major security risk.
+    // In a real application, use environment variables, a properties file, or a secrets manager.
+    private static final String PASSWORD = "Prasad@01";
+
+    private static final int DEFAULT_MAX_SIZE = 8;
+    private static final long DEFAULT_MAX_WAIT_MILLIS = 10_000;
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 5 * 60_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final int STATEMENT_CACHE_SIZE = 64; // per physical connection
+
+    private static ConnectionPool shared;
+
+    /** Point-in-time counters, printed by MainApplication on exit. */
+    public record Stats(int total, int idle, long borrows, long exhausted, long timeouts,
+                        double avgBorrowMillis, double maxBorrowMillis, long evicted,
+                        long statementHits, long statementMisses) {
+        @Override
+        public String toString() {
+            return String.format("connections=%d (idle %d), borrows=%d, exhausted=%d, timeouts=%d, "
+                            + "borrow latency avg=%.2f ms max=%.2f ms, evicted=%d, statement cache hits=%d misses=%d",
+                    total, idle, borrows, exhausted, timeouts, avgBorrowMillis, maxBorrowMillis, evicted,
+                    statementHits, statementMisses);
+        }
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private int total;
+    private boolean closed;
+
+    // Metrics, guarded by lock.
+    private long borrowCount;
+    private long exhaustedCount;
+    private long timeoutCount;
+    private long borrowNanosTotal;
+    private long borrowNanosMax;
+    private long evictedCount;
+    // Updated by borrowers without the lock, each on its own connection's statement cache.
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password, int maxSize, long maxWaitMillis, long idleTimeoutMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive.");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /** The pool used by every console and GUI component of the application. */
+    public static synchronized ConnectionPool getShared() {
+        if (shared == null) {
+            shared = new ConnectionPool(JDBC_URL, USER, PASSWORD, DEFAULT_MAX_SIZE, DEFAULT_MAX_WAIT_MILLIS, DEFAULT_IDLE_TIMEOUT_MILLIS);
+        }
+        return shared;
+    }
+
+    /**
+     * Points the shared pool at another database, e.g. an in-process one for Benchmarks, closing the previous
+     * shared pool if there was one. Must be called before any component borrows from it.
+     */
+    public static synchronized void configureShared(String url, String user, String password) {
+        if (shared != null) {
+            shared.shutdown();
+        }
+        shared = new ConnectionPool(url, user, password, DEFAULT_MAX_SIZE, DEFAULT_MAX_WAIT_MILLIS, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /** Closes the shared pool if it was ever created, returning its final counters (or null). */
+    public static synchronized Stats shutdownShared() {
+        if (shared == null) {
+            return null;
+        }
+        Stats stats = shared.getStats();
+        shared.shutdown();
+        shared = null;
+        return stats;
+    }
+
+    /**
+     * Borrows a validated connection, waiting up to the configured max-wait when the pool is exhausted.
+     * The caller must close() it to hand it back.
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        boolean waited = false;
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool has been shut down.");
+                    }
+                    if (!idle.isEmpty()) {
+                        candidate = idle.pollFirst();
+                        break;
+                    }
+                    if (total < maxSize) {
+                        total++;
+                        create = true;
+                        break;
+                    }
+                    if (!waited) {
+                        waited = true;
+                        exhaustedCount++;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount++;
+                        throw new SQLException("Timed out after " + maxWaitMillis + " ms waiting for a database connection (pool of " + maxSize + " exhausted).");
+                    }
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection.", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // Network work (connect / validate) happens outside the lock.
+            if (create) {
+                try {
+                    candidate = open();
+                } catch (SQLException e) {
+                    discard(null);
+                    throw e;
+                }
+            } else if (!isUsable(candidate)) {
+                discard(candidate);
+                continue;
+            }
+
+            recordBorrow(System.nanoTime() - start);
+            return candidate.lease();
+        }
+    }
+
+    public Stats getStats() {
+        lock.lock();
+        try {
+            double avg = borrowCount == 0 ? 0 : borrowNanosTotal / 1e6 / borrowCount;
+            return new Stats(total, idle.size(), borrowCount, exhaustedCount, timeoutCount, avg, borrowNanosMax / 1e6, evictedCount,
+                    statementHits.get(), statementMisses.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void shutdown() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            total -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        evictor.shutdownNow();
+        toClose.forEach(PooledConnection::closePhysical);
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            return pc.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordBorrow(long nanos) {
+        lock.lock();
+        try {
+            borrowCount++;
+            borrowNanosTotal += nanos;
+            borrowNanosMax = Math.max(borrowNanosMax, nanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        boolean reusable = !pc.broken && resetState(pc);
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                pc.lastReturnedNanos = System.nanoTime();
+                idle.offerFirst(pc); // LIFO keeps the hottest connections busy and lets the rest age out
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(pc);
+    }
+
+    private void discard(PooledConnection pc) {
+        lock.lock();
+        try {
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (pc != null) {
+            pc.closePhysical();
+        }
+    }
+
+    /** Connects and records the catalog, read-only flag and isolation level the session starts with. */
+    private PooledConnection open() throws SQLException {
+        PooledConnection pc = new PooledConnection(DriverManager.getConnection(url, user, password));
+        try {
+            pc.catalog = pc.physical.getCatalog();
+            pc.readOnly = pc.physical.isReadOnly();
+            pc.isolation = pc.physical.getTransactionIsolation();
+        } catch (SQLException e) {
+            pc.closePhysical();
+            throw e;
+        }
+        return pc;
+    }
+
+    /** Undo anything a borrower may have changed so the next borrower gets a clean session. */
+    private boolean resetState(PooledConnection pc) {
+        try {
+            if (pc.physical.isClosed()) {
+                return false;
+            }
+            if (pc.sessionChanged) {
+                return false; // a SET or USE ran on it; only a new session is sure to be clean
+            }
+            pc.dropLeakedStatements();
+            if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            // Back to the schema and settings it was opened with, so no borrower inherits another's.
+            if (!Objects.equals(pc.physical.getCatalog(), pc.catalog)) {
+                pc.physical.setCatalog(pc.catalog);
+            }
+            if (pc.physical.isReadOnly() != pc.readOnly) {
+                pc.physical.setReadOnly(pc.readOnly);
+            }
+            if (pc.physical.getTransactionIsolation() != pc.isolation) {
+                pc.physical.setTransactionIsolation(pc.isolation);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        List<PooledConnection> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<PooledConnection> it = idle.descendingIterator(); // oldest returns are at the tail
+            while (it.hasNext()) {
+                PooledConnection pc = it.next();
+                if (pc.lastReturnedNanos - cutoff < 0) {
+                    it.remove();
+                    expired.add(pc);
+                }
+            }
+            total -= expired.size();
+            evictedCount += expired.size();
+            if (!expired.isEmpty()) {
+                available.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        expired.forEach(PooledConnection::closePhysical);
+    }
+
+    /** One physical connection plus the bookkeeping the pool needs for it. */
+    private final class PooledConnection {
+        private final Connection physical;
+        // The session state it was opened with; resetState() restores it on every return.
+        private String catalog;
+        private boolean readOnly;
+        private int isolation;
+        private long lastReturnedNanos = System.nanoTime();
+        private volatile boolean broken;
+        private volatile boolean sessionChanged;
+        // Only touched by the current borrower (or by release()), so it needs no lock of its own.
+        private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= STATEMENT_CACHE_SIZE) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LeaseHandler(this));
+        }
+
+        /** prepareStatement(sql) or, with autoGeneratedKeys set, prepareStatement(sql, autoGeneratedKeys). */
+        PreparedStatement prepare(Connection lease, String sql, Integer autoGeneratedKeys) throws SQLException {
+            String key = autoGeneratedKeys == null ? sql : autoGeneratedKeys + ":" + sql;
+            CachedStatement cached = statements.get(key);
+            if (cached != null && cached.evicted && !cached.inUse) {
+                statements.remove(key); // failed to reset, already closed
+                cached = null;
+            }
+            if (cached != null && !cached.inUse) {
+                statementHits.incrementAndGet();
+                return cached.lease(lease);
+            }
+            statementMisses.incrementAndGet();
+            PreparedStatement stmt = autoGeneratedKeys == null
+                    ? physical.prepareStatement(sql) : physical.prepareStatement(sql, autoGeneratedKeys);
+            CachedStatement created = new CachedStatement(stmt);
+            if (cached == null) {
+                statements.put(key, created);
+            } else {
+                created.evicted = true; // the same SQL is already open on this connection: this one isn't kept
+            }
+            return created.lease(lease);
+        }
+
+        /** Statements a borrower never closed can't be trusted with the next borrower's parameters. */
+        void dropLeakedStatements() {
+            statements.values().removeIf(cached -> {
+                if (!cached.inUse) return false;
+                cached.evict();
+                return true;
+            });
+        }
+
+        void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                // Nothing useful to do when a dead connection refuses to close.
+            }
+        }
+    }
+
+    /** A PreparedStatement kept open for reuse; lent out to one borrower at a time. */
+    private static final class CachedStatement {
+        private final PreparedStatement physical;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+        }
+
+        PreparedStatement lease(Connection connection) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new StatementHandler(this, connection));
+        }
+
+        /** Called when the borrower closes it: clears what it set so it is as good as freshly prepared. */
+        void giveBack() {
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                ResultSet rs = physical.getResultSet();
+                if (rs != null) rs.close();
+                physical.clearParameters();
+                physical.clearBatch();
+                physical.clearWarnings();
+                if (physical.getQueryTimeout() != 0) physical.setQueryTimeout(0);
+                if (physical.getMaxRows() != 0) physical.setMaxRows(0);
+                if (physical.getFetchSize() != 0) physical.setFetchSize(0);
+            } catch (SQLException e) {
+                evicted = true; // dropped from the cache the next time its SQL is prepared
+                closeQuietly();
+            }
+        }
+
+        /** Leaves the cache: closed now, or when the borrower using it closes it. */
+        void evict() {
+            evicted = true;
+            if (!inUse) closeQuietly();
+        }
+
+        void closeQuietly() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                // closed along with a dead connection already
+            }
+        }
+    }
+
+    /** Forwards to the cached statement; close() gives it back to the cache instead of closing it. */
+    private static final class StatementHandler implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection connection;
+        private boolean closed;
+
+        StatementHandler(CachedStatement cached, Connection connection) {
+            this.cached = cached;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        cached.giveBack();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.physical.isClosed();
+                case "getConnection":
+                    return connection; // the pooled lease, never the physical connection
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return true;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + cached.physical + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement has already been closed.");
+            }
+            try {
+                return method.invoke(cached.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Wraps statements that run free-form SQL (FxDb's custom SQL, scripts): one that starts a statement with
+     * SET or USE marks the session as changed, and the connection is closed instead of pooled when returned.
+     * LeaseHandler applies the same check to the SQL of prepareStatement and prepareCall.
+     */
+    private static final class SessionWatchHandler implements InvocationHandler {
+        private static final Pattern SESSION_CHANGE = Pattern.compile("(^|;)\\s*(SET|USE)\\b", Pattern.CASE_INSENSITIVE);
+        // Plain comments are dropped; executable ones (/*!40101 SET NAMES utf8 */ from mysqldump, /*+ ... */)
+        // lose only their markers, since MySQL runs the text inside them.
+        private static final Pattern COMMENT = Pattern.compile(
+                "/\\*[!+]\\d*|\\*/|/\\*.*?\\*/|--(?=\\s)[^\\n]*|#[^\\n]*", Pattern.DOTALL);
+
+        private final PooledConnection pc;
+        private final Statement physical;
+        private final Connection connection;
+
+        SessionWatchHandler(PooledConnection pc, Statement physical, Connection connection) {
+            this.pc = pc;
+            this.physical = physical;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return connection;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return true;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (args != null && args.length > 0 && args[0] instanceof String sql
+                            && (method.getName().startsWith("execute") || method.getName().equals("addBatch"))
+                            && changesSession(sql)) {
+                        pc.sessionChanged = true;
+                    }
+                    break;
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /** True if any statement in sql, read as MySQL would run it, starts with SET or USE. */
+        static boolean changesSession(String sql) {
+            return SESSION_CHANGE.matcher(COMMENT.matcher(sql).replaceAll(" ")).find();
+        }
+    }
+
+    /** Routes calls to the physical connection until the borrower closes its lease. */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean returned;
+
+        LeaseHandler(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pc.physical.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return true;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pc.physical + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+            if ((method.getName().equals("prepareStatement") || method.getName().equals("prepareCall"))
+                    && args[0] instanceof String sql && SessionWatchHandler.changesSession(sql)) {
+                pc.sessionChanged = true;
+            }
+            if (method.getName().equals("prepareStatement") && isCacheable(method.getParameterTypes())) {
+                try {
+                    return pc.prepare((Connection) proxy, (String) args[0], args.length == 2 ? (Integer) args[1] : null);
+                } catch (SQLException e) {
+                    if (e.getSQLState() != null && e.getSQLState().startsWith("08")) pc.broken = true;
+                    throw e;
+                }
+            }
+            try {
+                Object result = method.invoke(pc.physical, args);
+                if (result instanceof Statement stmt && method.getName().equals("createStatement")) {
+                    return Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                            new Class<?>[]{Statement.class}, new SessionWatchHandler(pc, stmt, (Connection) proxy));
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqlEx && sqlEx.getSQLState() != null && sqlEx.getSQLState().startsWith("08")) {
+                    pc.broken = true; // SQLSTATE class 08 = connection exception; don't hand this one out again
+                }
+                throw cause;
+            }
+        }
+
+        /** prepareStatement(String) and prepareStatement(String, int autoGeneratedKeys) are cached. */
+        private boolean isCacheable(Class<?>[] parameterTypes) {
+            return parameterTypes[0] == String.class
+                    && (parameterTypes.length == 1 || (parameterTypes.length == 2 && parameterTypes[1] == int.class));
+        }
+    }
+}
\ No newline at end of file
@@ -1,21 +1,31 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.NoSuchElementException;
 
 public class Cons {
 
     // --- DATABASE CONFIGURATION ---
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/crudop";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "Prasad@01";
-
+    // Connection settings live in ConnectionPool; the calculator borrows one pooled connection per session.
     private static Connection connection = null;
+    // Calculations are saved in the background; entries that can't reach MySQL wait in the spool file.
+    private static final Path HISTORY_SPOOL = Paths.get("calculation_history.spool");
+    private static HistoryWriter historyWriter = null;
+    private static final int HISTORY_PAGE_SIZE = 20;
+    // Results of expressions already evaluated this run (and of recent history), keyed by normalized text.
+    private static final ResultCache RESULT_CACHE = new ResultCache(4096);
+    private static final int CACHE_WARM_ROWS = 500;
 
     //<editor-fold desc="Database Management Methods">
     private static boolean connectToDatabase() {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
-            connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            connection = ConnectionPool.getShared().getConnection();
             return true;
         } catch (Exception e) {
             System.err.println("\n❌ DATABASE ERROR: Could not connect. Calculator will run without history features.");
@@ -25,93 +35,209 @@ public class Cons {
 
     private static void setupDatabaseTable() {
         if (connection == null) return;
-        String createTableSQL = "CREATE TABLE IF NOT EXISTS calculation_history ("
-                + "id INT AUTO_INCREMENT PRIMARY KEY,"
-                + "expression VARCHAR(255) NOT NULL,"
-                + "result DOUBLE NOT NULL,"
-                + "calculation_mode VARCHAR(50) NOT NULL,"
-                + "calculated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
-                + ")";
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(createTableSQL);
+        try {
+            CalculationHistory.ensureSchema(connection);
+            historyWriter = new HistoryWriter(ConnectionPool.getShared(), HISTORY_SPOOL, 1024, 50, 2000);
         } catch (SQLException e) {
             System.err.println("❌ Could not create or verify database table: " + e.getMessage());
             connection = null;
+            return;
+        }
+        try {
+            RESULT_CACHE.warm(new CalculationHistory(connection).recentExpressions(CACHE_WARM_ROWS));
+        } catch (SQLException e) {
+            // A cold cache only costs a few evaluations.
         }
     }
 
     private static void closeDatabaseConnection() {
+        if (historyWriter != null) {
+            historyWriter.close(); // Writes (or spools) the calculations still queued.
+            System.out.println("History: " + historyWriter.summary());
+            historyWriter = null;
+        }
+        System.out.println("Result cache: " + RESULT_CACHE.summary());
         try {
             if (connection != null && !connection.isClosed()) {
-                connection.close();
+                connection.close(); // Returns the connection to the shared pool.
             }
         } catch (SQLException e) {
             // Error not critical on shutdown, can be ignored.
         }
+        connection = null;
     }
 
     private static void saveCalculation(String expression, double result, String mode) {
-        if (connection == null) return;
-        String insertSQL = "INSERT INTO calculation_history (expression, result, calculation_mode) VALUES (?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(insertSQL)) {
-            pstmt.setString(1, expression);
-            pstmt.setDouble(2, result);
-            pstmt.setString(3, mode);
-            pstmt.executeUpdate();
+        if (historyWriter == null) return;
+        if (historyWriter.submit(expression, result, mode)) {
             System.out.println("--> Calculation saved to history.");
-        } catch (SQLException e) {
-            System.err.println("❌ Could not save calculation to history: " + e.getMessage());
+        } else {
+            System.err.println("❌ Could not save calculation to history: the history queue is full.");
         }
     }
 
-    private static void viewHistory() {
+    private static void viewHistory(Scanner scanner) {
         if (connection == null) {
             System.out.println("Database connection not available. History feature is disabled.");
             return;
         }
-        String selectSQL = "SELECT id, expression, result, calculation_mode, calculated_at FROM calculation_history ORDER BY calculated_at DESC LIMIT 20";
-        System.out.println("\n--- Calculation History (Last 20 Entries) ---");
+        if (historyWriter != null) {
+            historyWriter.flush(2000); // Show the calculations still in the write-behind queue too.
+        }
+        CalculationHistory history = new CalculationHistory(connection);
+        CalculationHistory.Filter filter = CalculationHistory.Filter.NONE;
+        List<CalculationHistory.Entry> page;
+        try {
+            page = history.page(filter, null, true, HISTORY_PAGE_SIZE);
+        } catch (SQLException e) {
+            System.err.println("❌ Could not retrieve history: " + e.getMessage());
+            return;
+        }
+        while (true) {
+            printHistoryPage(filter, page);
+            System.out.print("[n]ext (older), [p]revious (newer), [f]ilter, [s]tats, [b]ack: ");
+            String choice = scanner.nextLine().trim().toLowerCase(Locale.ROOT);
+            try {
+                switch (choice) {
+                    case "n": {
+                        List<CalculationHistory.Entry> older = page.isEmpty() ? page
+                                : history.page(filter, page.get(page.size() - 1), true, HISTORY_PAGE_SIZE);
+                        if (older.isEmpty()) System.out.println("--> No older entries.");
+                        else page = older;
+                        break;
+                    }
+                    case "p": {
+                        List<CalculationHistory.Entry> newer = page.isEmpty() ? page
+                                : history.page(filter, page.get(0), false, HISTORY_PAGE_SIZE);
+                        if (newer.isEmpty()) System.out.println("--> No newer entries.");
+                        else page = newer;
+                        break;
+                    }
+                    case "f":
+                        filter = readHistoryFilter(scanner);
+                        page = history.page(filter, null, true, HISTORY_PAGE_SIZE);
+                        break;
+                    case "s":
+                        printHistoryStats(filter, history.stats(filter));
+                        break;
+                    case "b":
+                        return;
+                    default:
+                        System.out.println("Invalid choice. Please enter n, p, f, s or b.");
+                }
+            } catch (SQLException e) {
+                System.err.println("❌ Could not retrieve history: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Asks for a mode and an inclusive date range; blank answers leave that part unrestricted. */
+    private static CalculationHistory.Filter readHistoryFilter(Scanner scanner) {
+        System.out.print("Mode (ArrayList, LinkedList, Queue, or blank for all): ");
+        String mode = scanner.nextLine().trim();
+        Timestamp from = null, to = null;
+        try {
+            System.out.print("From date (yyyy-mm-dd, or blank): ");
+            String fromInput = scanner.nextLine().trim();
+            if (!fromInput.isEmpty()) from = Timestamp.valueOf(LocalDate.parse(fromInput).atStartOfDay());
+            System.out.print("To date, inclusive (yyyy-mm-dd, or blank): ");
+            String toInput = scanner.nextLine().trim();
+            if (!toInput.isEmpty()) to = Timestamp.valueOf(LocalDate.parse(toInput).plusDays(1).atStartOfDay());
+        } catch (DateTimeParseException e) {
+            System.out.println("❌ Invalid date, showing all dates: " + e.getParsedString());
+            from = null;
+            to = null;
+        }
+        return new CalculationHistory.Filter(mode.isEmpty() ? null : mode, from, to);
+    }
+
+    private static void printHistoryPage(CalculationHistory.Filter filter, List<CalculationHistory.Entry> page) {
+        System.out.println("\n--- Calculation History (" + filter + ", " + HISTORY_PAGE_SIZE + " per page) ---");
         System.out.println("=========================================================================================");
         System.out.printf("%-5s | %-30s | %-15s | %-15s | %-20s%n", "ID", "Expression", "Result", "Mode", "Timestamp");
         System.out.println("-----------------------------------------------------------------------------------------");
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(selectSQL)) {
-            boolean hasRows = false;
-            while (rs.next()) {
-                hasRows = true;
-                System.out.printf("%-5d | %-30s | %-15.4f | %-15s | %s%n",
-                        rs.getInt("id"),
-                        rs.getString("expression"),
-                        rs.getDouble("result"),
-                        rs.getString("calculation_mode"),
-                        rs.getTimestamp("calculated_at").toString());
-            }
-            if (!hasRows) {
-                System.out.println("No history found in the database.");
-            }
-        } catch (SQLException e) {
-            System.err.println("❌ Could not retrieve history: " + e.getMessage());
+        if (page.isEmpty()) {
+            System.out.println("No history found in the database.");
+        }
+        for (CalculationHistory.Entry entry : page) {
+            System.out.printf("%-5d | %-30s | %-15.4f | %-15s | %s%n",
+                    entry.id(), entry.expression(), entry.result(), entry.mode(), entry.calculatedAt());
         }
         System.out.println("=========================================================================================");
     }
+
+    private static void printHistoryStats(CalculationHistory.Filter filter, List<CalculationHistory.ModeStats> stats) {
+        System.out.println("\n--- History Statistics (" + filter + ") ---");
+        System.out.printf("%-15s | %-10s | %-15s | %-15s | %-15s%n", "Mode", "Count", "Average", "Min", "Max");
+        System.out.println("-----------------------------------------------------------------------------");
+        if (stats.isEmpty()) {
+            System.out.println("No history found in the database.");
+        }
+        for (CalculationHistory.ModeStats s : stats) {
+            System.out.printf("%-15s | %-10d | %-15.4f | %-15.4f | %-15.4f%n", s.mode(), s.count(), s.average(), s.min(), s.max());
+        }
+    }
     //</editor-fold>
 
-    //<editor-fold desc="Calculation Logic (unchanged)">
-    private static int precedence(char op) { if (op == '+' || op == '-') return 1; if (op == '*' || op == '/') return 2; return 0; }
-    private static double applyOperation(double a, double b, char op) { switch (op) { case '+': return a + b; case '-': return a - b; case '*': return a * b; case '/': if (b == 0) throw new UnsupportedOperationException("Cannot divide by zero"); return a / b; default: throw new IllegalArgumentException("Invalid operator: " + op); } }
+    //<editor-fold desc="Calculation Logic">
     private static int checkBalance(String expr) { int balance = 0; for (char c : expr.toCharArray()) { if (c == '(') balance++; else if (c == ')') balance--; } return balance; }
-    private static boolean isValidExpression(String expr) { String cleanExpr = expr.replaceAll("\\s+", ""); if (cleanExpr.isEmpty()) return false; if (cleanExpr.contains("()")) return false; if (cleanExpr.matches(".*[+\\-*/]\\).*")) return false; if (cleanExpr.matches(".*\\([*/].*")) return false; if (cleanExpr.matches("^[*/+].*|.*[+\\-*/]$")) return false; if (cleanExpr.matches(".*[+\\-*/]{2,}.*")) return false; for (char c : cleanExpr.toCharArray()) { if (!Character.isDigit(c) && "+-*/() .".indexOf(c) == -1) return false; } return true; }
-    private static double evaluateExpression(String expression, Collection<Double> even, Collection<Double> odd) { even.clear(); odd.clear(); String expr = expression.replaceAll("\\s+", "").replaceAll("(?<=\\d)(?=\\()", "*").replaceAll("(?<=\\))(?=\\d)", "*").replaceAll("(?<=\\))(?=\\()", "*"); LinkedList<Double> values = new LinkedList<>(); LinkedList<Character> ops = new LinkedList<>(); int i = 0; while (i < expr.length()) { char c = expr.charAt(i); if (Character.isDigit(c) || c == '.') { StringBuilder sbuf = new StringBuilder(); while (i < expr.length() && (Character.isDigit(expr.charAt(i)) || expr.charAt(i) == '.')) { sbuf.append(expr.charAt(i++)); } i--; double num = Double.parseDouble(sbuf.toString()); if (Math.round(num) % 2 == 0) even.add(num); else odd.add(num); values.add(num); } else if (c == '(') { ops.add(c); } else if (c == ')') { while (ops.getLast() != '(') { char op = ops.removeLast(); try { double b = values.removeLast(); double a = values.removeLast(); values.add(applyOperation(a, b, op)); } catch (NoSuchElementException e) { throw new IllegalArgumentException("Invalid syntax near '" + op + "'."); } } ops.removeLast(); } else { if (c == '-' && (i == 0 || "+-*/(".indexOf(expr.charAt(i - 1)) != -1)) { values.add(0.0); } while (!ops.isEmpty() && precedence(ops.getLast()) >= precedence(c)) { char op = ops.removeLast(); try { double b = values.removeLast(); double a = values.removeLast(); values.add(applyOperation(a, b, op)); } catch (NoSuchElementException e) { throw new IllegalArgumentException("Invalid syntax near '" + op + "'."); } } ops.add(c); } i++; } while (!ops.isEmpty()) { char op = ops.removeLast(); try { double b = values.removeLast(); double a = values.removeLast(); values.add(applyOperation(a, b, op)); } catch (NoSuchElementException e) { throw new IllegalArgumentException("Invalid syntax near '" + op + "'."); } } if (values.size() != 1) { throw new IllegalArgumentException("Invalid expression: Leftover numbers."); } return values.getLast(); }
-    private static double arrayListMode(String expr, ArrayList<Double> even, ArrayList<Double> odd) { return evaluateExpression(expr, even, odd); }
-    private static double linkedListMode(String expr, LinkedList<Double> even, LinkedList<Double> odd) { return evaluateExpression(expr, even, odd); }
-    private static void addToQueueList(LinkedList<Queue<Double>> list, double number, int capacity) { if (list.isEmpty() || list.getLast().size() >= capacity) { list.add(new LinkedList<>()); } list.getLast().add(number); }
-    private static void extractNumbersToQueues(String expression, LinkedList<Queue<Double>> inputQueues, int capacity) { String expr = expression.replaceAll("\\s+", "").replaceAll("(?<=\\d)(?=\\()", "").replaceAll("(?<=\\))(?=\\d)", "").replaceAll("(?<=\\))(?=\\()", "*"); int i = 0; while (i < expr.length()) { if (Character.isDigit(expr.charAt(i)) || expr.charAt(i) == '.') { StringBuilder sbuf = new StringBuilder(); while (i < expr.length() && (Character.isDigit(expr.charAt(i)) || expr.charAt(i) == '.')) { sbuf.append(expr.charAt(i++)); } i--; double num = Double.parseDouble(sbuf.toString()); addToQueueList(inputQueues, num, capacity); } i++; } }
-    private static void distributeToEvenOddQueues(LinkedList<Queue<Double>> inputQueues, LinkedList<Queue<Double>> evenQueues, LinkedList<Queue<Double>> oddQueues, int capacity) { for (Queue<Double> q : inputQueues) { for (double number : q) { if (Math.round(number) % 2 == 0) { addToQueueList(evenQueues, number, capacity); } else { addToQueueList(oddQueues, number, capacity); } } } }
-    private static void processQueueMode(String expr, int inputCap, int eoCap, LinkedList<Queue<Double>> inputQ, LinkedList<Queue<Double>> evenQ, LinkedList<Queue<Double>> oddQ) { extractNumbersToQueues(expr, inputQ, inputCap); distributeToEvenOddQueues(inputQ, evenQ, oddQ, eoCap); }
-    private static void printQueueList(String label, LinkedList<Queue<Double>> queues) { System.out.println(label + ":"); if (queues.isEmpty()) { System.out.println("  (None)"); return; } int i = 1; for (Queue<Double> q : queues) { System.out.println("  Queue " + (i++) + " => " + q); } }
+    private static double evaluateExpression(String expression, DoubleList even, DoubleList odd) { ResultCache.Result result = RESULT_CACHE.evaluate(expression); even.clear(); odd.clear(); result.partition(even, odd); return result.value(); }
+    private static double arrayListMode(String expr, DoubleList even, DoubleList odd) { return evaluateExpression(expr, even, odd); }
+    private static double linkedListMode(String expr, DoubleList even, DoubleList odd) { return evaluateExpression(expr, even, odd); }
+    private static void extractNumbersToQueues(String expression, DoubleChunkQueue inputQueues) { ResultCache.Result result = RESULT_CACHE.evaluate(expression); for (int i = 0; i < result.numberCount(); i++) { inputQueues.add(result.number(i)); } }
+    private static void distributeToEvenOddQueues(DoubleChunkQueue inputQueues, DoubleChunkQueue evenQueues, DoubleChunkQueue oddQueues) { for (int i = 0; i < inputQueues.size(); i++) { double number = inputQueues.get(i); if (CompiledExpression.isEven(number)) { evenQueues.add(number); } else { oddQueues.add(number); } } }
+    private static void processQueueMode(String expr, DoubleChunkQueue inputQ, DoubleChunkQueue evenQ, DoubleChunkQueue oddQ) { extractNumbersToQueues(expr, inputQ); distributeToEvenOddQueues(inputQ, evenQ, oddQ); }
+    private static void printQueueList(String label, DoubleChunkQueue queues) { System.out.println(label + ":"); if (queues.isEmpty()) { System.out.println("  (None)"); return; } for (int i = 0; i < queues.chunkCount(); i++) { System.out.println("  Queue " + (i + 1) + " => " + queues.chunkToString(i)); } }
     private static String fixParentheses(String expr, Scanner scanner) { int balance = checkBalance(expr); if (balance < 0) { System.out.printf("--> Unbalanced expression: %d missing '('. Please re-enter.\n", Math.abs(balance)); return null; } String missingChar = ")"; int missingCount = balance; String pluralSuffix = missingCount > 1 ? "s" : ""; System.out.printf("--> Unbalanced expression: %d missing '%s' character%s.\n", missingCount, missingChar, pluralSuffix); while (true) { System.out.printf("--> Enter a position (0 to %d) to insert one '%s', or type 'cancel': ", expr.length(), missingChar); String input = scanner.nextLine().trim(); if (input.equalsIgnoreCase("cancel")) return null; try { int pos = Integer.parseInt(input); if (pos >= 0 && pos <= expr.length()) { String newExpr = expr.substring(0, pos) + missingChar + expr.substring(pos); System.out.println("? Updated Expression: " + newExpr); return newExpr; } else { System.out.println("? Error: Position must be between 0 and " + expr.length() + "."); } } catch (NumberFormatException e) { System.out.println("? Input recognized as a new expression."); System.out.println("? Updated Expression: " + input); return input; } } }
     //</editor-fold>
 
+    //<editor-fold desc="Batch Mode">
+    /** Evaluates a file of expressions (one per line) into an output file. Batch results are not saved to history. */
+    private static void runBatch(Scanner scanner) {
+        try {
+            System.out.print("Enter the input file path: ");
+            Path input = Paths.get(scanner.nextLine().trim());
+            if (!Files.isRegularFile(input)) {
+                System.out.println("❌ Error: File not found: " + input);
+                return;
+            }
+            System.out.print("Enter the output file path: ");
+            Path output = Paths.get(scanner.nextLine().trim());
+            System.out.print("Mode (1. ArrayList, 2. LinkedList, 3. Queue): ");
+            String modeChoice = scanner.nextLine().trim();
+            BatchCalculator calculator;
+            switch (modeChoice) {
+                case "1":
+                    calculator = new BatchCalculator(BatchCalculator.Mode.ARRAY_LIST, 0, 0, Runtime.getRuntime().availableProcessors());
+                    break;
+                case "2":
+                    calculator = new BatchCalculator(BatchCalculator.Mode.LINKED_LIST, 0, 0, Runtime.getRuntime().availableProcessors());
+                    break;
+                case "3":
+                    System.out.print("Enter Input Queue Capacity: ");
+                    int inputCapacity = Integer.parseInt(scanner.nextLine().trim());
+                    System.out.print("Enter Even/Odd Queue Capacity: ");
+                    int evenOddCapacity = Integer.parseInt(scanner.nextLine().trim());
+                    calculator = new BatchCalculator(BatchCalculator.Mode.QUEUE, inputCapacity, evenOddCapacity, Runtime.getRuntime().availableProcessors());
+                    break;
+                default:
+                    System.out.println("Invalid choice. Please enter a number between 1 and 3.");
+                    return;
+            }
+            System.out.println("Evaluating " + input + "...");
+            BatchCalculator.Report report = calculator.run(input, output);
+            System.out.println("✅ Batch complete: " + report);
+            System.out.println("Results written to " + output);
+        } catch (NumberFormatException e) {
+            System.out.println("❌ Error: Capacities must be whole numbers.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ Error: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("❌ Batch evaluation failed: " + e.getMessage());
+        }
+    }
+    //</editor-fold>
+
     /**
      * The main application loop for the console calculator. It is called by MainApplication.
      * @param scanner The Scanner object passed from the main application to use for input.
@@ -123,13 +249,17 @@ public class Cons {
 
         mainLoop:
         while (true) {
-            System.out.print("\nEnter a mathematical expression (or 'back' to return to menu): ");
+            System.out.print("\nEnter a mathematical expression ('batch' to evaluate a file, or 'back' to return to menu): ");
             String expr = scanner.nextLine();
 
             if (expr.equalsIgnoreCase("back")) {
                 closeDatabaseConnection(); // Clean up DB connection before returning
                 return; // This exits the run() method and returns control to MainApplication
             }
+            if (expr.equalsIgnoreCase("batch")) {
+                runBatch(scanner);
+                continue;
+            }
 
             while (checkBalance(expr) != 0) {
                 expr = fixParentheses(expr, scanner);
@@ -137,8 +267,9 @@ public class Cons {
                     continue mainLoop;
                 }
             }
-             if (!isValidExpression(expr)) {
-                System.out.println("❌ Invalid Expression. Please check your syntax.");
+            long validation = RESULT_CACHE.contains(expr) ? ExpressionValidator.VALID : ExpressionValidator.validate(expr);
+            if (validation != ExpressionValidator.VALID) {
+                System.out.println("❌ Invalid Expression: " + ExpressionValidator.describe(expr, validation));
                 continue;
             }
 
@@ -157,8 +288,8 @@ public class Cons {
                 switch (modeChoice) {
                     case "1": { // ArrayList Mode
                         try {
-                            ArrayList<Double> even = new ArrayList<>();
-                            ArrayList<Double> odd = new ArrayList<>();
+                            DoubleList even = new DoubleList();
+                            DoubleList odd = new DoubleList();
                             double result = arrayListMode(expr, even, odd);
                             System.out.println("\nResult: " + result);
                             System.out.println("Even Numbers: " + even);
@@ -171,8 +302,8 @@ public class Cons {
                     }
                     case "2": { // LinkedList Mode
                         try {
-                            LinkedList<Double> even = new LinkedList<>();
-                            LinkedList<Double> odd = new LinkedList<>();
+                            DoubleList even = new DoubleList();
+                            DoubleList odd = new DoubleList();
                             double result = linkedListMode(expr, even, odd);
                             System.out.println("\nResult: " + result);
                             System.out.print("Even Numbers: ");
@@ -197,9 +328,9 @@ public class Cons {
                                 System.out.println("❌ Error: Capacities must be positive.");
                                 continue;
                             }
-                            LinkedList<Queue<Double>> iQ = new LinkedList<>(), eQ = new LinkedList<>(), oQ = new LinkedList<>();
-                            processQueueMode(expr, inputCapacity, evenOddCapacity, iQ, eQ, oQ);
-                            double result = evaluateExpression(expr, new ArrayList<>(), new ArrayList<>());
+                            DoubleChunkQueue iQ = new DoubleChunkQueue(inputCapacity), eQ = new DoubleChunkQueue(evenOddCapacity), oQ = new DoubleChunkQueue(evenOddCapacity);
+                            processQueueMode(expr, iQ, eQ, oQ);
+                            double result = RESULT_CACHE.evaluate(expr).value();
                             System.out.println("\nResult: " + result);
                             printQueueList("Input Queues", iQ);
                             printQueueList("Even Queues", eQ);
@@ -211,7 +342,7 @@ public class Cons {
                         break;
                     }
                     case "4":
-                        viewHistory();
+                        viewHistory(scanner);
                         break;
                     case "5":
                         stayOnThisExpression = false; // Go back to asking for a new expression
@@ -1,153 +1,548 @@
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class DatabaseHelper {
-    private static final String JDBC_URL = "jdbc:mysql://localhost:3306/crudop?serverTimezone=UTC";
-    private static final String USER = "root";
-    // SECURITY NOTE: Hardcoding passwords is a major security risk.
-    // In a real application, use environment variables, a properties file, or a secrets manager.
-    private static final String PASSWORD = "Prasad@01";
-
     // FIXED: Record is a modern, concise way to create an immutable data carrier class.
-    // FIXED: The collections returned are now JavaFX ObservableLists to work with TableView.
-    public record TableData(List<String> headers, ObservableList<ObservableList<String>> rows) {}
+    // Rows are held column-wise in a ColumnarTable; rows() exposes them as an ObservableList for TableView.
+    public record TableData(List<String> headers, ColumnarTable columns) {
+        public ObservableList<List<String>> rows() {
+            return columns.rows();
+        }
+    }
+
+    public static final int DEFAULT_DELETE_CHUNK_SIZE = 1000;
+
+    // A WHERE clause that carries its own ORDER BY or LIMIT can't be followed by the locking SELECT's LIMIT.
+    private static final Pattern ORDER_OR_LIMIT = Pattern.compile("\\b(ORDER\\s+BY|LIMIT)\\b", Pattern.CASE_INSENSITIVE);
+
+    /** Outcome of a chunked delete: rows asked for, rows the server actually deleted, transactions committed. */
+    public record DeleteReport(int requested, int deleted, int chunks, long elapsedNanos) {
+        @Override
+        public String toString() {
+            return String.format("%d of %d row(s) deleted in %d transaction(s), %.2f s",
+                    deleted, requested, chunks, elapsedNanos / 1e9);
+        }
+    }
+
+    /** Rows changed by executeKeyedChange, and the primary keys of the rows it matched (null if unknown). */
+    public record KeyedChange(int rowsAffected, List<String> keys) {}
+
+    /**
+     * What the data grid asks the server for: rows whose text contains search (in searchColumn, or in any
+     * column when that is null), ordered by sortColumn. Null fields mean no filter / primary-key order.
+     */
+    public record RowQuery(String search, String searchColumn, String sortColumn, boolean descending) {
+        public static final RowQuery NONE = new RowQuery(null, null, null, false);
+
+        public boolean isFiltered() {
+            return search != null && !search.isEmpty();
+        }
+    }
 
+    private final SchemaCache schema = new SchemaCache();
+
+    // Connections are borrowed from the shared pool; closing them hands them back instead of disconnecting.
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(JDBC_URL, USER, PASSWORD);
+        return ConnectionPool.getShared().getConnection();
     }
 
     // FIXED: All methods now `throw SQLException` so the UI layer can handle errors.
     // FIXED: All methods now use `try-with-resources` to guarantee resource closure.
 
     public List<String> getTableNames() throws SQLException {
-        List<String> tableNames = new ArrayList<>();
-        try (Connection conn = getConnection();
-             ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, "%", new String[]{"TABLE"})) {
-            while (rs.next()) {
-                tableNames.add(rs.getString("TABLE_NAME"));
-            }
+        List<String> cached = schema.getTableNames();
+        if (cached != null) {
+            return cached;
+        }
+        long generation = schema.generation();
+        List<String> tableNames;
+        try (Connection conn = getConnection()) {
+            tableNames = SchemaCache.readTableNames(conn);
         }
+        schema.storeTableNames(generation, tableNames);
         return tableNames;
     }
 
-    public List<String> getColumnNames(String tableName) throws SQLException {
-        List<String> columnNames = new ArrayList<>();
-        // Using LIMIT 0 is an efficient way to get metadata without fetching data.
-        String sql = "SELECT * FROM `" + tableName + "` LIMIT 0";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            ResultSetMetaData metaData = rs.getMetaData();
-            for (int i = 1; i <= metaData.getColumnCount(); i++) {
-                columnNames.add(metaData.getColumnName(i));
+    /** Columns, types and primary key of a table; answered from the schema cache after the first load. */
+    public SchemaCache.TableSchema getTableSchema(String tableName) throws SQLException {
+        SchemaCache.TableSchema cached = schema.getTable(tableName);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = schema.generation();
+        SchemaCache.TableSchema loaded;
+        try (Connection conn = getConnection()) {
+            loaded = SchemaCache.readTables(conn, tableName).get(tableName);
+        }
+        if (loaded == null) {
+            throw new SQLException("Table '" + tableName + "' doesn't exist");
+        }
+        schema.storeTable(generation, loaded);
+        return loaded;
+    }
+
+    /** Drops everything cached and reloads the table list and all table schemas in one pass. */
+    public List<String> refreshSchema() throws SQLException {
+        schema.invalidateAll();
+        long generation = schema.generation();
+        List<String> tableNames;
+        try (Connection conn = getConnection()) {
+            tableNames = SchemaCache.readTableNames(conn);
+            for (SchemaCache.TableSchema table : SchemaCache.readTables(conn, "%").values()) {
+                if (tableNames.contains(table.tableName())) { // views have columns too
+                    schema.storeTable(generation, table);
+                }
             }
         }
-        return columnNames;
+        schema.storeTableNames(generation, tableNames);
+        return tableNames;
+    }
+
+    public List<String> getColumnNames(String tableName) throws SQLException {
+        return getTableSchema(tableName).columnNames();
     }
 
     public TableData getTableData(String tableName) throws SQLException {
-        List<String> headers = new ArrayList<>();
-        ObservableList<ObservableList<String>> rows = FXCollections.observableArrayList();
         String sql = "SELECT * FROM `" + tableName + "`";
 
         try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
+            ColumnarTable table = ColumnarTable.read(rs, -1);
+            return new TableData(table.getHeaders(), table);
+        }
+    }
+
+    /** Returns the table's primary key column, or null when it has none or a composite one. */
+    public String getPrimaryKeyColumn(String tableName) throws SQLException {
+        return getTableSchema(tableName).keyColumn();
+    }
 
-            for (int i = 1; i <= columnCount; i++) {
-                headers.add(metaData.getColumnName(i));
+    public ColumnarTable getTablePage(String tableName, String keyColumn, String afterKey, String throughKey,
+                                    long offset, int limit) throws SQLException {
+        return getTablePage(tableName, keyColumn, afterKey, throughKey, offset, limit, RowQuery.NONE, null);
+    }
+
+    /**
+     * Reads one page of rows for PagedTableData; the query's search becomes a parameterized WHERE and its sort
+     * an ORDER BY, so only matching rows leave the server. With a key column the page is the key range
+     * (afterKey, throughKey] in key order, which MySQL answers with a seek on the primary key index
+     * (either bound may be null); a negative limit reads the whole range. Without one (or when sorting by
+     * another column) it uses LIMIT/OFFSET, ordered by the sort column with the primary key as tie-breaker.
+     * Running statements are registered with the cancellation, when given, so a superseded page can be
+     * stopped on the server.
+     */
+    public ColumnarTable getTablePage(String tableName, String keyColumn, String afterKey, String throughKey,
+                                    long offset, int limit, RowQuery query, QueryCancellation cancellation) throws SQLException {
+        SchemaCache.TableSchema table = getTableSchema(tableName);
+        StringBuilder sql = new StringBuilder("SELECT * FROM `").append(tableName).append("`");
+        List<String> conditions = new ArrayList<>();
+        List<String> params = new ArrayList<>();
+        List<Integer> types = new ArrayList<>(); // JDBC type each parameter is bound as
+        if (query.isFiltered()) {
+            List<String> searched = query.searchColumn() != null ? List.of(columnName(table, query.searchColumn())) : table.columnNames();
+            String pattern = "%" + query.search().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            List<String> matches = new ArrayList<>();
+            for (String column : searched) {
+                matches.add("CAST(`" + column + "` AS CHAR) LIKE ?");
+                params.add(pattern);
+                types.add(Types.VARCHAR);
+            }
+            conditions.add("(" + String.join(" OR ", matches) + ")");
+        }
+        if (keyColumn != null) {
+            if (afterKey != null) {
+                conditions.add("`" + keyColumn + "` > ?");
+                params.add(afterKey);
+                types.add(typeOf(table, keyColumn));
+            }
+            if (throughKey != null) {
+                conditions.add("`" + keyColumn + "` <= ?");
+                params.add(throughKey);
+                types.add(typeOf(table, keyColumn));
+            }
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        if (keyColumn != null) {
+            sql.append(" ORDER BY `").append(keyColumn).append("`");
+            if (limit >= 0) {
+                sql.append(" LIMIT ").append(limit);
+            }
+        } else {
+            String direction = query.descending() ? " DESC" : "";
+            List<String> order = new ArrayList<>();
+            if (query.sortColumn() != null) {
+                order.add("`" + columnName(table, query.sortColumn()) + "`" + direction);
+            }
+            String tieBreaker = table.keyColumn();
+            if (tieBreaker != null && (query.sortColumn() == null || !tieBreaker.equalsIgnoreCase(query.sortColumn()))) {
+                order.add("`" + tieBreaker + "`" + direction);
             }
+            if (!order.isEmpty()) {
+                sql.append(" ORDER BY ").append(String.join(", ", order));
+            }
+            sql.append(" LIMIT ").append(limit).append(" OFFSET ").append(offset);
+        }
 
-            while (rs.next()) {
-                ObservableList<String> row = FXCollections.observableArrayList();
-                for (int i = 1; i <= columnCount; i++) {
-                    row.add(rs.getString(i));
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                ColumnCodec.bind(stmt, i + 1, params.get(i), types.get(i));
+            }
+            if (cancellation != null) {
+                cancellation.register(stmt);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return ColumnarTable.read(rs, limit);
+            } finally {
+                if (cancellation != null) {
+                    cancellation.unregister(stmt);
                 }
-                rows.add(row);
             }
         }
-        return new TableData(headers, rows);
+    }
+
+    /** The column's name as the schema spells it; rejects anything that isn't a column, so it is safe to quote into SQL. */
+    private static String columnName(SchemaCache.TableSchema table, String name) throws SQLException {
+        SchemaCache.Column column = table.column(name);
+        if (column == null) {
+            throw new SQLException("Unknown column '" + name + "' in table '" + table.tableName() + "'");
+        }
+        return column.name();
+    }
+
+    /** The column's JDBC type for ColumnCodec; VARCHAR (plain text) for a column the schema doesn't know. */
+    private static int typeOf(SchemaCache.TableSchema table, String name) {
+        SchemaCache.Column column = table.column(name);
+        return column == null ? Types.VARCHAR : column.jdbcType();
     }
 
     public int executeUpdateOrDelete(String sql) throws SQLException {
+        return executeUpdateOrDelete(sql, null);
+    }
+
+    /** Like executeUpdateOrDelete(sql), but the statement can be cancelled and gets the cancellation's timeout. */
+    public int executeUpdateOrDelete(String sql, QueryCancellation cancellation) throws SQLException {
         try (Connection conn = getConnection();
              Statement stmt = conn.createStatement()) {
-            return stmt.executeUpdate(sql);
+            if (cancellation == null) {
+                return stmt.executeUpdate(sql);
+            }
+            cancellation.register(stmt);
+            try {
+                return stmt.executeUpdate(sql);
+            } finally {
+                cancellation.unregister(stmt);
+            }
+        } finally {
+            schema.invalidateFor(sql); // also after a failure: a multi-statement batch may have got partway
         }
     }
 
-    public void insertRow(String tableName, Map<String, String> data) throws SQLException {
+    /** Runs a whole SQL script file on one connection, statement by statement; failures are logged and skipped. */
+    public SqlScriptRunner.Result executeScript(Path script, Consumer<String> log) throws IOException, SQLException {
+        try (Connection conn = getConnection()) {
+            return new SqlScriptRunner(conn, SqlScriptRunner.DEFAULT_BATCH_SIZE, false, log).run(script, sql -> {});
+        } finally {
+            schema.invalidateAll(); // a script can contain any DDL
+        }
+    }
+
+    /** Streams the table to a file; slices of an integer primary key are exported in parallel over separate connections. */
+    public TableExporter.Report exportTable(String tableName, Path target, TableExporter.Format format,
+                                            Consumer<String> progress) throws IOException, SQLException {
+        return new TableExporter(ConnectionPool.getShared(), progress)
+                .export(tableName, getPrimaryKeyColumn(tableName), target, format, TableExporter.DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Inserts one row and returns its primary key value: the generated key for an AUTO_INCREMENT key, otherwise
+     * the value given for the key column. Null when the table has no single-column key or no value was given.
+     */
+    public String insertRow(String tableName, Map<String, String> data) throws SQLException {
         // Build the query dynamically but safely using PreparedStatement
         String columns = data.keySet().stream().map(key -> "`" + key + "`").collect(Collectors.joining(", "));
         String placeholders = String.join(", ", Collections.nCopies(data.size(), "?"));
         String sql = "INSERT INTO `" + tableName + "` (" + columns + ") VALUES (" + placeholders + ")";
+        SchemaCache.TableSchema table = getTableSchema(tableName);
+        String keyColumn = table.keyColumn();
 
         try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             int index = 1;
-            for (String value : data.values()) {
-                stmt.setString(index++, value);
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                ColumnCodec.bind(stmt, index++, entry.getValue(), typeOf(table, entry.getKey()));
             }
             stmt.executeUpdate();
+            if (keyColumn == null) {
+                return null;
+            }
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(keyColumn)) return entry.getValue();
+            }
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getString(1) : null;
+            }
         }
     }
 
-    public TableData executeGenericQuery(String sql) throws SQLException {
-        List<String> headers = new ArrayList<>();
-        ObservableList<ObservableList<String>> rows = FXCollections.observableArrayList();
+    /**
+     * The rows with the given primary key values (in no particular order); rows that no longer exist are absent.
+     * Keys are looked up DEFAULT_DELETE_CHUNK_SIZE at a time, so the IN list stays bounded however many are asked for.
+     */
+    public ColumnarTable getRowsByKey(String tableName, String keyColumn, Collection<String> keyValues) throws SQLException {
+        SchemaCache.TableSchema table = getTableSchema(tableName);
+        String column = columnName(table, keyColumn);
+        int keyType = typeOf(table, column);
+        List<String> keys = keyValues.isEmpty() ? Collections.singletonList(null) : new ArrayList<>(keyValues); // null matches nothing
+        ColumnarTable rows = null;
+        try (Connection conn = getConnection()) {
+            for (int from = 0; from < keys.size(); from += DEFAULT_DELETE_CHUNK_SIZE) {
+                List<String> chunk = keys.subList(from, Math.min(keys.size(), from + DEFAULT_DELETE_CHUNK_SIZE));
+                int size = inListSize(chunk.size(), DEFAULT_DELETE_CHUNK_SIZE);
+                String placeholders = String.join(",", Collections.nCopies(size, "?"));
+                String sql = "SELECT * FROM `" + tableName + "` WHERE `" + column + "` IN (" + placeholders + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    bindInList(stmt, 1, chunk, size, keyType);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        ColumnarTable part = ColumnarTable.read(rs, -1);
+                        if (rows == null) {
+                            rows = part;
+                        } else {
+                            rows.append(part);
+                        }
+                    }
+                }
+            }
+        }
+        return rows;
+    }
 
+    /**
+     * Runs an UPDATE or DELETE of tableName restricted by whereClause (empty for all rows) and also returns the
+     * primary key values of the rows it touched, so a view can refresh just those. Up to maxKeys + 1 matching
+     * rows are first read and locked with SELECT ... LIMIT maxKeys + 1 FOR UPDATE in the same transaction, so
+     * no other client can change those rows before the statement runs; when more rows match, the rest are not
+     * locked by that SELECT and keys is null. keys is also null (and the statement simply runs) when the table
+     * has no single-column primary key or whereClause has its own ORDER BY or LIMIT.
+     */
+    public KeyedChange executeKeyedChange(String tableName, String dmlSql, String whereClause, int maxKeys) throws SQLException {
+        String keyColumn = getPrimaryKeyColumn(tableName);
+        if (keyColumn == null || ORDER_OR_LIMIT.matcher(whereClause).find()) {
+            return new KeyedChange(executeUpdateOrDelete(dmlSql), null);
+        }
+        String select = "SELECT `" + keyColumn + "` FROM `" + tableName + "`"
+                + (whereClause.isEmpty() ? "" : " WHERE " + whereClause) + " LIMIT " + (maxKeys + 1) + " FOR UPDATE";
+        try (Connection conn = getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                List<String> keys = new ArrayList<>();
+                try (ResultSet rs = stmt.executeQuery(select)) {
+                    while (rs.next()) {
+                        keys.add(rs.getString(1));
+                    }
+                }
+                int rowsAffected = stmt.executeUpdate(dmlSql);
+                conn.commit();
+                return new KeyedChange(rowsAffected, keys.size() > maxKeys ? null : keys);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    public TableData executeGenericQuery(String sql) throws SQLException {
         try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
+            ColumnarTable table = ColumnarTable.read(rs, -1);
+            return new TableData(table.getHeaders(), table);
+        }
+    }
 
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            for (int i = 1; i <= columnCount; i++) {
-                headers.add(metaData.getColumnName(i));
-            }
-
-            while (rs.next()) {
-                ObservableList<String> row = FXCollections.observableArrayList();
-                for (int i = 1; i <= columnCount; i++) {
-                    row.add(rs.getString(i));
+    /**
+     * Runs a query and hands its rows to chunkConsumer in chunks of up to chunkRows as they arrive, so a
+     * large or slow result can be shown while it is still being read. The first chunk is always delivered
+     * (possibly empty) and carries the headers. Rows are streamed by the driver rather than buffered whole.
+     * Returns the number of rows read.
+     */
+    public long streamQuery(String sql, QueryCancellation cancellation, int chunkRows,
+                            Consumer<ColumnarTable> chunkConsumer) throws SQLException {
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Integer.MIN_VALUE makes Connector/J stream rows one by one instead of buffering the whole result.
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            cancellation.register(stmt);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                long rows = 0;
+                while (true) {
+                    ColumnarTable chunk = ColumnarTable.read(rs, chunkRows);
+                    if (chunk.getRowCount() > 0 || rows == 0) {
+                        chunkConsumer.accept(chunk);
+                    }
+                    rows += chunk.getRowCount();
+                    if (chunk.getRowCount() < chunkRows) {
+                        return rows;
+                    }
                 }
-                rows.add(row);
+            } finally {
+                cancellation.unregister(stmt);
             }
         }
-        return new TableData(headers, rows);
     }
 
     public void updateCellValue(String tableName, String columnName, String newValue, String keyColumn, String keyValue) throws SQLException {
         String sql = "UPDATE `" + tableName + "` SET `" + columnName + "` = ? WHERE `" + keyColumn + "` = ?";
+        SchemaCache.TableSchema table = getTableSchema(tableName);
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, newValue);
-            stmt.setString(2, keyValue);
+            ColumnCodec.bind(stmt, 1, newValue, typeOf(table, columnName));
+            ColumnCodec.bind(stmt, 2, keyValue, typeOf(table, keyColumn));
             stmt.executeUpdate();
         }
     }
 
+    /**
+     * Writes a batch of buffered cell edits in one transaction. Rows edited in the same set of columns share
+     * one PreparedStatement and go to the server as a JDBC batch. Each UPDATE only matches if the row still
+     * holds the values the user started from, so rows changed (or deleted) by someone else are not
+     * overwritten; their key values are returned as conflicts.
+     */
+    public List<String> applyCellEdits(CellEditBuffer.Batch batch) throws SQLException {
+        Map<List<String>, List<CellEditBuffer.RowEdit>> rowsByShape = new LinkedHashMap<>();
+        for (CellEditBuffer.RowEdit row : batch.rows()) {
+            List<String> shape = row.changes().stream().map(CellEditBuffer.CellChange::column).collect(Collectors.toList());
+            rowsByShape.computeIfAbsent(shape, k -> new ArrayList<>()).add(row);
+        }
+
+        SchemaCache.TableSchema table = getTableSchema(batch.tableName());
+        int keyType = typeOf(table, batch.keyColumn());
+        List<String> conflicts = new ArrayList<>();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<List<String>, List<CellEditBuffer.RowEdit>> entry : rowsByShape.entrySet()) {
+                    List<String> columns = entry.getKey();
+                    String setClause = columns.stream().map(c -> "`" + c + "` = ?").collect(Collectors.joining(", "));
+                    String guard = columns.stream().map(c -> " AND `" + c + "` <=> ?").collect(Collectors.joining());
+                    String sql = "UPDATE `" + batch.tableName() + "` SET " + setClause
+                            + " WHERE `" + batch.keyColumn() + "` = ?" + guard;
+
+                    List<CellEditBuffer.RowEdit> rows = entry.getValue();
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        for (CellEditBuffer.RowEdit row : rows) {
+                            int index = 1;
+                            for (CellEditBuffer.CellChange change : row.changes()) {
+                                ColumnCodec.bind(stmt, index++, change.newValue(), typeOf(table, change.column()));
+                            }
+                            ColumnCodec.bind(stmt, index++, row.keyValue(), keyType);
+                            for (CellEditBuffer.CellChange change : row.changes()) {
+                                ColumnCodec.bind(stmt, index++, change.originalValue(), typeOf(table, change.column()));
+                            }
+                            stmt.addBatch();
+                        }
+                        int[] counts = stmt.executeBatch();
+                        for (int i = 0; i < counts.length; i++) {
+                            if (counts[i] == 0) {
+                                conflicts.add(rows.get(i).keyValue());
+                            }
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return conflicts;
+    }
+
     public void deleteMultipleRows(String tableName, String keyColumn, List<String> keyValues) throws SQLException {
+        deleteMultipleRows(tableName, keyColumn, keyValues, DEFAULT_DELETE_CHUNK_SIZE, null, keys -> {});
+    }
+
+    /**
+     * Deletes the rows with the given keys in chunks of chunkSize keys, each chunk one DELETE ... IN (...) in its
+     * own short transaction, so a large selection neither holds row locks for long nor builds one huge undo log.
+     * chunkDeleted receives the keys of every chunk once it is committed. If a chunk fails (or the cancellation
+     * stops it) that chunk is rolled back and the exception thrown; the chunks before it stay deleted.
+     */
+    public DeleteReport deleteMultipleRows(String tableName, String keyColumn, List<String> keyValues, int chunkSize,
+                                           QueryCancellation cancellation, Consumer<List<String>> chunkDeleted) throws SQLException {
+        long startedAt = System.nanoTime();
         if (keyValues == null || keyValues.isEmpty()) {
-            return;
+            return new DeleteReport(0, 0, 0, 0);
         }
-        String placeholders = String.join(",", Collections.nCopies(keyValues.size(), "?"));
-        String sql = "DELETE FROM `" + tableName + "` WHERE `" + keyColumn + "` IN (" + placeholders + ")";
+        int size = Math.max(1, chunkSize);
+        SchemaCache.TableSchema table = getTableSchema(tableName);
+        String column = columnName(table, keyColumn);
+        int keyType = typeOf(table, column);
+        int deleted = 0, chunks = 0;
 
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            for (int i = 0; i < keyValues.size(); i++) {
-                stmt.setString(i + 1, keyValues.get(i));
+        try (Connection conn = getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < keyValues.size(); from += size) {
+                    List<String> keys = keyValues.subList(from, Math.min(keyValues.size(), from + size));
+                    try (PreparedStatement stmt = conn.prepareStatement(deleteSql(tableName, column, inListSize(keys.size(), size)))) {
+                        bindInList(stmt, 1, keys, inListSize(keys.size(), size), keyType);
+                        if (cancellation != null) cancellation.register(stmt);
+                        try {
+                            deleted += stmt.executeUpdate();
+                        } finally {
+                            if (cancellation != null) cancellation.unregister(stmt);
+                        }
+                        conn.commit();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        throw e;
+                    }
+                    chunks++;
+                    chunkDeleted.accept(List.copyOf(keys));
+                }
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
-            stmt.executeUpdate();
         }
+        return new DeleteReport(keyValues.size(), deleted, chunks, System.nanoTime() - startedAt);
+    }
+
+    /**
+     * IN lists are padded to a few fixed lengths (powers of two, at most max) by repeating their last value,
+     * so lists of any length share a handful of SQL texts, and with them cached prepared statements.
+     */
+    private static int inListSize(int count, int max) {
+        if (count <= 8) return count;
+        return Math.min(max, Integer.highestOneBit(count - 1) << 1);
+    }
+
+    private static void bindInList(PreparedStatement stmt, int first, List<String> values, int size, int jdbcType) throws SQLException {
+        for (int i = 0; i < size; i++) {
+            ColumnCodec.bind(stmt, first + i, values.get(Math.min(i, values.size() - 1)), jdbcType);
+        }
+    }
+
+    private static String deleteSql(String table, String column, int keyCount) {
+        String placeholders = String.join(",", Collections.nCopies(keyCount, "?"));
+        return "DELETE FROM `" + table + "` WHERE `" + column + "` IN (" + placeholders + ")";
     }
 }
\ No newline at end of file
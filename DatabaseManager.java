@@ -1,24 +1,25 @@
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 public class DatabaseManager {
     // Constants
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/crudop?createDatabaseIfNotExist=true&allowMultiQueries=true";
-    private static final String DB_USER = "root";
-    // SECURITY NOTE: Hardcoding passwords is a major security risk.
-    // In a real application, use environment variables, a properties file, or a secrets manager.
-    private static final String DB_PASS = "Prasad@01";
     private static final String SETUP_FILE = "create.txt";
     private static final String INSERT_FILE = "ins2.txt";
+    // Column JDBC types per table, read once from result set metadata; cleared when the setup script runs.
+    private static final Map<String, Map<String, Integer>> COLUMN_TYPES = new HashMap<>();
 
     public static void run(Scanner scanner) {
         // FIXED: The top-level connection is now managed by try-with-resources.
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASS)) {
+        // The connection is borrowed from the shared pool and returned to it when the session ends.
+        try (Connection connection = ConnectionPool.getShared().getConnection()) {
             System.out.println("✅ Database connection successful.");
             boolean keepRunning = true;
 
@@ -58,44 +59,24 @@ public class DatabaseManager {
 
     private static void handleSetup(Connection connection) {
         System.out.println("Attempting to set up database from '" + SETUP_FILE + "'...");
-        StringBuilder sqlBuilder = new StringBuilder();
-
-        // FIXED: Used try-with-resources for BufferedReader.
-        try (BufferedReader reader = new BufferedReader(new FileReader(SETUP_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Remove comments from SQL lines
-                String trimmedLine = line.trim();
-                if (trimmedLine.contains("--")) {
-                    trimmedLine = trimmedLine.substring(0, trimmedLine.indexOf("--")).trim();
-                }
-                if (!trimmedLine.isEmpty()) {
-                    sqlBuilder.append(trimmedLine).append(" ");
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error: Could not read file '" + SETUP_FILE + "'. " + e.getMessage());
-            return;
-        }
-
-        String[] queries = sqlBuilder.toString().split(";");
         List<String> createdTables = new ArrayList<>();
+        COLUMN_TYPES.clear();
 
-        // FIXED: Used try-with-resources for Statement.
-        try (Statement stmt = connection.createStatement()) {
-            for (String query : queries) {
-                String trimmedQuery = query.trim();
-                if (!trimmedQuery.isEmpty()) {
-                    stmt.executeUpdate(trimmedQuery);
-                    if (trimmedQuery.toUpperCase().startsWith("CREATE TABLE")) {
-                        createdTables.add(extractTableName(trimmedQuery));
-                    }
+        // Statements are executed as they are read, on this connection, stopping at the first error.
+        SqlScriptRunner runner = new SqlScriptRunner(connection, SqlScriptRunner.DEFAULT_BATCH_SIZE, true, System.out::println);
+        try (BufferedReader reader = new BufferedReader(new FileReader(SETUP_FILE))) {
+            SqlScriptRunner.Result result = runner.run(reader, query -> {
+                if (query.toUpperCase().startsWith("CREATE TABLE")) {
+                    createdTables.add(extractTableName(query));
                 }
-            }
+            });
             System.out.println("\n✅ Database setup complete.");
+            System.out.printf("Executed %d statement(s) in %.1f ms.%n", result.executed(), result.elapsedNanos() / 1e6);
             if (!createdTables.isEmpty()) {
                 System.out.println("Tables created/verified: " + String.join(", ", createdTables));
             }
+        } catch (IOException e) {
+            System.err.println("Error: Could not read file '" + SETUP_FILE + "'. " + e.getMessage());
         } catch (SQLException e) {
             System.err.println("\n--- ❌ ERROR DURING DATABASE SETUP ---\nMessage: " + e.getMessage());
         }
@@ -105,34 +86,39 @@ public class DatabaseManager {
         System.out.println("Which table do you want to insert into? (e.g., DEPT, EMP)");
         String tableName = scanner.nextLine().trim().toUpperCase();
         String primaryKeyCol = getPrimaryKeyColumn(tableName);
-        System.out.println("Reading insert statements from '" + INSERT_FILE + "' for table " + tableName);
-
-        int rowsAffected = 0;
-        // FIXED: Used try-with-resources for BufferedReader and Statement.
-        try (BufferedReader reader = new BufferedReader(new FileReader(INSERT_FILE));
-             Statement stmt = connection.createStatement()) {
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String sql = line.trim();
-                if (sql.toUpperCase().startsWith("INSERT INTO " + tableName)) {
-                    String pkValue = extractPrimaryKeyValue(sql, tableName);
-                    if (primaryKeyCol == null || pkValue == null || !recordExists(connection, tableName, primaryKeyCol, pkValue)) {
-                        rowsAffected += stmt.executeUpdate(sql);
-                    }
-                }
-            }
+        System.out.println("Bulk-loading insert statements from '" + INSERT_FILE + "' for table " + tableName);
+
+        // The file is memory-mapped and its statements parsed on worker threads; rows are written here in chunks:
+        // one SELECT finds the keys that already exist, one multi-row INSERT adds the rest, each chunk is committed.
+        BulkInserter.Report report = null;
+        BulkInserter inserter = null;
+        try {
+            inserter = new BulkInserter(connection, tableName, primaryKeyCol, BulkInserter.DEFAULT_CHUNK_SIZE, System.out::println);
+            MappedSqlLoader.load(Paths.get(INSERT_FILE), MappedSqlLoader.DEFAULT_RANGE_BYTES, MappedSqlLoader.DEFAULT_PARALLELISM,
+                    inserter::prepare, inserter::add);
+            report = inserter.finish();
         } catch (IOException e) {
             System.err.println("❌ Error reading insert file '" + INSERT_FILE + "': " + e.getMessage());
         } catch (SQLException e) {
             System.err.println("❌ Error during insert: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // MappedSqlLoader rethrows what its parser threads threw.
+            System.err.println("❌ Error while parsing '" + INSERT_FILE + "': " + e);
+        } finally {
+            // Whatever went wrong, the shared connection goes back to autocommit with no open transaction.
+            if (report == null && inserter != null) inserter.abort();
+        }
+        if (report == null) {
+            return;
         }
 
-        if (rowsAffected > 0) {
-            System.out.println("✅ Successfully inserted " + rowsAffected + " new record(s) into " + tableName + ".");
+        if (report.insertedRows() > 0) {
+            System.out.println("✅ Successfully inserted " + report.insertedRows() + " new record(s) into " + tableName + ".");
         } else {
             System.out.println("No new records were inserted. They may already exist.");
         }
+        System.out.printf("Processed %d row(s) (%d already present) in %.1f ms, %.0f rows/s.%n",
+                report.parsedRows(), report.existingRows(), report.elapsedNanos() / 1e6, report.rowsPerSecond());
     }
 
     private static void handleRead(Scanner scanner, Connection connection) {
@@ -172,8 +158,9 @@ public class DatabaseManager {
 
         // FIXED: Used try-with-resources for PreparedStatement.
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, newValue);
-            pstmt.setString(2, pkValue);
+            Map<String, Integer> types = columnTypes(connection, tableName);
+            ColumnCodec.bind(pstmt, 1, newValue, ColumnCodec.typeOf(types, columnToUpdate));
+            ColumnCodec.bind(pstmt, 2, pkValue, ColumnCodec.typeOf(types, primaryKeyCol));
             int rowsAffected = pstmt.executeUpdate();
             System.out.println(rowsAffected > 0 ? "✅ Record updated successfully." : "Record not found or no changes made.");
         } catch (SQLException e) {
@@ -203,7 +190,7 @@ public class DatabaseManager {
 
         // FIXED: Used try-with-resources for PreparedStatement.
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, pkValue);
+            ColumnCodec.bind(pstmt, 1, pkValue, ColumnCodec.typeOf(columnTypes(connection, tableName), primaryKeyCol));
             int rowsAffected = pstmt.executeUpdate();
             System.out.println(rowsAffected > 0 ? "✅ Record deleted successfully." : "Record not found.");
         } catch (SQLException e) {
@@ -212,26 +199,22 @@ public class DatabaseManager {
     }
 
     private static boolean hasDependentRecords(Connection connection, String tableName, String pkValue) {
-        String sql;
+        String referencingColumn;
         switch (tableName.toUpperCase()) {
             case "DEPT":
-                sql = "SELECT 1 FROM EMP WHERE DEPTNO = ?";
+                referencingColumn = "DEPTNO";
                 break;
             case "EMP":
-                sql = "SELECT 1 FROM EMP WHERE MGR = ?";
+                referencingColumn = "MGR";
                 break;
             default:
                 return false; // No known dependencies
         }
+        String sql = "SELECT 1 FROM EMP WHERE " + referencingColumn + " = ?";
 
-        // FIXED: Used try-with-resources and handled potential NumberFormatException.
+        // FIXED: Used try-with-resources; the key is bound as the referencing column's type so its index is used.
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            // This is a common case where PK is a number but input is a string.
-            try {
-                pstmt.setInt(1, Integer.parseInt(pkValue));
-            } catch (NumberFormatException e) {
-                pstmt.setString(1, pkValue); // Fallback for non-numeric keys
-            }
+            ColumnCodec.bind(pstmt, 1, pkValue, ColumnCodec.typeOf(columnTypes(connection, "EMP"), referencingColumn));
             try (ResultSet rs = pstmt.executeQuery()) {
                 return rs.next(); // True if a dependent record exists
             }
@@ -245,14 +228,15 @@ public class DatabaseManager {
     // --- HELPER METHODS --- (Mostly unchanged, but good practices are confirmed)
 
     private static void printTable(ResultSet rs) throws SQLException {
-        ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
+        // Read into typed columns; each value is turned into text only here, for printing.
+        ColumnarTable table = ColumnarTable.read(rs, -1);
+        int columnCount = table.getColumnCount();
         List<List<String>> allRows = new ArrayList<>();
 
-        while (rs.next()) {
+        for (int r = 0; r < table.getRowCount(); r++) {
             List<String> row = new ArrayList<>();
-            for (int i = 1; i <= columnCount; i++) {
-                String value = rs.getString(i);
+            for (int i = 0; i < columnCount; i++) {
+                String value = table.getValue(r, i);
                 row.add(value != null ? value : "NULL");
             }
             allRows.add(row);
@@ -265,7 +249,7 @@ public class DatabaseManager {
 
         List<Integer> columnWidths = new ArrayList<>();
         for (int i = 1; i <= columnCount; i++) {
-            int width = metaData.getColumnName(i).length();
+            int width = table.getHeaders().get(i - 1).length();
             for (List<String> row : allRows) {
                 width = Math.max(width, row.get(i - 1).length());
             }
@@ -285,7 +269,7 @@ public class DatabaseManager {
 
         Object[] headers = new Object[columnCount];
         for (int i = 0; i < columnCount; i++) {
-            headers[i] = metaData.getColumnName(i + 1);
+            headers[i] = table.getHeaders().get(i);
         }
         System.out.printf(format + "%n", headers);
         System.out.println(separatorBuilder.toString());
@@ -296,6 +280,16 @@ public class DatabaseManager {
         System.out.println();
     }
 
+    private static Map<String, Integer> columnTypes(Connection connection, String tableName) throws SQLException {
+        String key = tableName.toUpperCase();
+        Map<String, Integer> types = COLUMN_TYPES.get(key);
+        if (types == null) {
+            types = ColumnCodec.columnTypes(connection, tableName);
+            COLUMN_TYPES.put(key, types);
+        }
+        return types;
+    }
+
     private static String extractTableName(String createQuery) {
         String upperQuery = createQuery.toUpperCase();
         int tableIndex = upperQuery.indexOf("TABLE");
@@ -317,35 +311,4 @@ public class DatabaseManager {
             default: return null;
         }
     }
-
-    private static String extractPrimaryKeyValue(String insertSql, String tableName) {
-        try {
-            String[] parts = insertSql.split("VALUES");
-            if (parts.length < 2) return null;
-            String valuesPart = parts[1].replaceAll("[();']", "").trim();
-            String[] values = valuesPart.split(",");
-            switch (tableName.toUpperCase()) {
-                case "DEPT":
-                case "EMP":
-                case "SALGRADE":
-                    return values.length > 0 ? values[0].trim() : null;
-                case "BONUS":
-                    return values.length > 1 ? values[1].trim() : null;
-                default:
-                    return null;
-            }
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    private static boolean recordExists(Connection connection, String tableName, String pkColumn, String pkValue) throws SQLException {
-        String sql = String.format("SELECT 1 FROM %s WHERE %s = ?", tableName, pkColumn);
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, pkValue);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next();
-            }
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+import java.util.NoSuchElementException;
+
+/**
+ * A FIFO queue of primitive doubles, viewed as consecutive chunks of at most chunkCapacity numbers. It stands
+ * in for the calculator's LinkedList<Queue<Double>>: adding fills the last chunk and starts a new one when it
+ * is full, exactly as Cons' Queue mode used to, but every number lives in one ring buffer, so there is no
+ * per-number box or node and no per-chunk queue object.
+ * Chunk boundaries are fixed by the order numbers were added; polling shrinks the first chunk.
+ */
+public final class DoubleChunkQueue {
+    private final int chunkCapacity;
+    private double[] ring;
+    private long head; // number of values ever polled
+    private long tail; // number of values ever added
+
+    public DoubleChunkQueue(int chunkCapacity) {
+        if (chunkCapacity <= 0) throw new IllegalArgumentException("Capacities must be positive.");
+        this.chunkCapacity = chunkCapacity;
+        this.ring = new double[16];
+    }
+
+    public void add(double value) {
+        if (tail - head == ring.length) grow();
+        ring[(int) (tail & (ring.length - 1))] = value;
+        tail++;
+    }
+
+    public double poll() {
+        if (head == tail) throw new NoSuchElementException("Queue is empty");
+        return ring[(int) (head++ & (ring.length - 1))];
+    }
+
+    public double get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        return ring[(int) ((head + index) & (ring.length - 1))];
+    }
+
+    public int size() {
+        return (int) (tail - head);
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    public int chunkCount() {
+        return isEmpty() ? 0 : (int) ((tail - 1) / chunkCapacity - head / chunkCapacity + 1);
+    }
+
+    /** The chunk as a Queue's toString() printed it, e.g. "[1.0, 2.0]". */
+    public String chunkToString(int chunk) {
+        if (chunk < 0 || chunk >= chunkCount()) {
+            throw new IndexOutOfBoundsException("Chunk " + chunk + " out of bounds for " + chunkCount() + " chunks");
+        }
+        long chunkStart = (head / chunkCapacity + chunk) * chunkCapacity;
+        long from = Math.max(head, chunkStart);
+        long to = Math.min(tail, chunkStart + chunkCapacity);
+        StringBuilder out = new StringBuilder().append('[');
+        for (long i = from; i < to; i++) {
+            if (i > from) out.append(", ");
+            out.append(ring[(int) (i & (ring.length - 1))]);
+        }
+        return out.append(']').toString();
+    }
+
+    /** Doubles the ring (its length stays a power of two), unrolling it so head sits at its slot again. */
+    private void grow() {
+        double[] bigger = new double[ring.length * 2];
+        for (long i = head; i < tail; i++) {
+            bigger[(int) (i & (bigger.length - 1))] = ring[(int) (i & (ring.length - 1))];
+        }
+        ring = bigger;
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A growable list of primitive doubles for the calculator's even/odd split, so collecting a large
+ * expression's numbers costs an occasional array copy instead of a boxed Double and a list node per number.
+ * toString() prints like ArrayList<Double> did ("[2.0, 4.0]").
+ */
+public final class DoubleList {
+    private double[] values;
+    private int size;
+
+    public DoubleList() {
+        this(16);
+    }
+
+    public DoubleList(int initialCapacity) {
+        values = new double[Math.max(1, initialCapacity)];
+    }
+
+    public void add(double value) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void forEach(DoubleConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(size * 6 + 2).append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) out.append(", ");
+            out.append(values[i]);
+        }
+        return out.append(']').toString();
+    }
+}
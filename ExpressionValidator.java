@@ -0,0 +1,109 @@
+/**
+ * Single-pass syntax check for calculator expressions. It enforces the rules Cons.isValidExpression used to
+ * check with separate regexes (no illegal characters, no "()", no operator before ')' or '*' '/' after '(',
+ * no leading '*' '/' '+', no trailing or doubled operators; whitespace is ignored) and, in the same scan,
+ * that parentheses are balanced and never close before they open.
+ * The result is packed into a long so that checking allocates nothing: {@link #VALID}, or the first
+ * violation's {@link Error} and its index in the original string, read back with {@link #error(long)} and
+ * {@link #position(long)}.
+ */
+public final class ExpressionValidator {
+    public static final long VALID = -1;
+
+    public enum Error {
+        EMPTY("expression is empty"),
+        ILLEGAL_CHARACTER("illegal character"),
+        EMPTY_PARENTHESES("empty parentheses"),
+        OPERATOR_BEFORE_CLOSE("operator before ')'"),
+        OPERATOR_AFTER_OPEN("'*' or '/' right after '('"),
+        LEADING_OPERATOR("expression starts with an operator"),
+        TRAILING_OPERATOR("expression ends with an operator"),
+        ADJACENT_OPERATORS("two operators in a row"),
+        UNMATCHED_CLOSE("')' without a matching '('"),
+        UNCLOSED_OPEN("'(' is never closed");
+
+        private final String message;
+
+        Error(String message) {
+            this.message = message;
+        }
+
+        public String message() {
+            return message;
+        }
+    }
+
+    private static final Error[] ERRORS = Error.values();
+    private static final int START = 0, OPERAND = 1, OPERATOR = 2, OPEN = 3, CLOSE = 4;
+
+    private ExpressionValidator() {
+    }
+
+    public static long validate(CharSequence expr) {
+        int prev = START;
+        int depth = 0;
+        int outermostOpen = -1; // index of the '(' that took depth from 0 to 1
+        int n = expr.length();
+        for (int i = 0; i < n; i++) {
+            char c = expr.charAt(i);
+            switch (c) {
+                case ' ': case '\t': case '\n': case '\u000B': case '\f': case '\r':
+                    continue; // what the regex \s matches
+                case '(':
+                    if (depth++ == 0) outermostOpen = i;
+                    prev = OPEN;
+                    continue;
+                case ')':
+                    if (prev == OPEN) return fail(Error.EMPTY_PARENTHESES, i);
+                    if (prev == OPERATOR) return fail(Error.OPERATOR_BEFORE_CLOSE, i);
+                    if (--depth < 0) return fail(Error.UNMATCHED_CLOSE, i);
+                    prev = CLOSE;
+                    continue;
+                case '+': case '-': case '*': case '/':
+                    if (prev == OPERATOR) return fail(Error.ADJACENT_OPERATORS, i);
+                    if (prev == START && c != '-') return fail(Error.LEADING_OPERATOR, i);
+                    if (prev == OPEN && (c == '*' || c == '/')) return fail(Error.OPERATOR_AFTER_OPEN, i);
+                    prev = OPERATOR;
+                    continue;
+                default:
+                    if (c != '.' && !Character.isDigit(c)) return fail(Error.ILLEGAL_CHARACTER, i);
+                    prev = OPERAND;
+            }
+        }
+        if (prev == START) return fail(Error.EMPTY, 0);
+        if (prev == OPERATOR) return fail(Error.TRAILING_OPERATOR, lastNonWhitespace(expr));
+        if (depth > 0) return fail(Error.UNCLOSED_OPEN, outermostOpen);
+        return VALID;
+    }
+
+    public static boolean isValid(CharSequence expr) {
+        return validate(expr) == VALID;
+    }
+
+    /** The violation of a non-VALID result. */
+    public static Error error(long result) {
+        return ERRORS[(int) (result & 0xFF)];
+    }
+
+    /** Index in the checked string where the violation was found. */
+    public static int position(long result) {
+        return (int) (result >>> 8);
+    }
+
+    /** A message for the console: what is wrong and where, with a caret under the offending character. */
+    public static String describe(String expr, long result) {
+        if (result == VALID) return "valid";
+        int position = position(result);
+        return error(result).message() + " at position " + position + "\n    " + expr + "\n    " + " ".repeat(position) + "^";
+    }
+
+    private static long fail(Error error, int position) {
+        return ((long) position << 8) | error.ordinal();
+    }
+
+    private static int lastNonWhitespace(CharSequence expr) {
+        int i = expr.length() - 1;
+        while (i > 0 && " \t\n\u000B\f\r".indexOf(expr.charAt(i)) >= 0) i--;
+        return i;
+    }
+}
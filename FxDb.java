@@ -1,4 +1,7 @@
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -18,11 +21,12 @@ import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -33,7 +37,7 @@ public class FxDb extends Application {
     //<editor-fold desc="Class Fields">
     private Stage primaryStage;
     private ListView<String> tableListView;
-    private TableView<ObservableList<String>> dataTableView;
+    private TableView<List<String>> dataTableView;
     private TextArea logArea;
     private Label currentTableLabel;
     private VBox insertForm;
@@ -50,8 +54,36 @@ public class FxDb extends Application {
     private TextField addColumnSizeField;
     private Button addColumnButton;
 
-    private final Map<ObservableList<String>, SimpleBooleanProperty> rowSelectionMap = new HashMap<>();
+    private final RowSelection rowSelection = new RowSelection(); // the ticked rows of the "Select" column
     private final DatabaseHelper dbHelper = new DatabaseHelper();
+    // All database work runs here; at most 4 tasks hold a pooled connection at a time.
+    private final TaskExecutor taskExecutor = new TaskExecutor(4, this::logTaskTiming);
+    private PagedTableData currentPagedData;
+    private Task<PagedTableData> pendingLoad;
+    private QueryCancellation pendingLoadCancellation;
+    // Search and sort of the data grid, evaluated by the server (see DatabaseHelper.RowQuery).
+    private static final String ALL_COLUMNS = "All columns";
+    private TextField searchField;
+    private ComboBox<String> searchColumnBox;
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(300));
+    private String sortColumn;
+    private boolean sortDescending;
+    private DatabaseHelper.RowQuery requestedQuery = DatabaseHelper.RowQuery.NONE;
+    private String displayedTable;
+    private boolean ignoreSortRequests;
+    // Tasks whose statements the Cancel button can stop, and the limit every statement they run gets.
+    private final Map<Task<?>, QueryCancellation> cancellableTasks = new LinkedHashMap<>();
+    private Spinner<Integer> queryTimeoutSpinner;
+    private Spinner<Integer> deleteChunkSpinner; // keys per DELETE transaction when deleting selected rows
+    private Button cancelQueriesButton;
+    private QueryCancellation customQuery; // the custom SELECT whose rows are streaming into the grid
+    private static final int RESULT_CHUNK_ROWS = 500;
+    // After an UPDATE or DELETE touching at most this many rows only those rows are re-read, not the view.
+    private static final int DELTA_REFRESH_MAX_ROWS = 1000;
+    private int runningTasks;
+    private int blockingTasks;
+    // Inline edits are saved in batches: 2 s after the first unsaved edit, at 50 cells, or on "Save Changes".
+    private final CellEditBuffer editBuffer = new CellEditBuffer(Duration.seconds(2), 50, this::flushCellEdits);
 
     private StackPane centerStackPane;
     private VBox centerVBox;
@@ -84,16 +116,44 @@ public class FxDb extends Application {
         primaryStage.setScene(scene);
         primaryStage.show();
 
-        refreshTableList();
+        refreshTableList(true); // loads the whole schema cache once, so table switches need no metadata queries
+    }
+
+    @Override
+    public void stop() {
+        // Write any still-buffered cell edits before the executor goes away.
+        for (CellEditBuffer.Batch batch : editBuffer.drainAll()) {
+            try {
+                List<String> conflicts = dbHelper.applyCellEdits(batch);
+                if (!conflicts.isEmpty()) {
+                    System.err.println("Edits to '" + batch.tableName() + "' rows " + conflicts + " were not saved: the rows changed in the database.");
+                }
+            } catch (SQLException e) {
+                System.err.println("❌ Could not save pending edits to '" + batch.tableName() + "': " + e.getMessage());
+            }
+        }
+        taskExecutor.shutdown();
+        System.out.println("GUI background tasks: " + taskExecutor.summary());
+    }
+
+    private <T> Task<T> runBackgroundTask(String description, String serialKey, boolean blockUi,
+                                          Supplier<T> backgroundAction, Consumer<T> successConsumer) {
+        return runBackgroundTask(description, serialKey, blockUi, null, backgroundAction, successConsumer);
     }
 
     /**
-     * A helper method to run database operations on a background thread.
-     * It shows a progress indicator, disables the UI, and handles success/failure.
+     * A helper method to run database operations on the shared TaskExecutor (virtual threads).
+     * It shows a progress indicator and handles success/failure. Tasks with the same serialKey (the table name)
+     * run in the order they were started; blockUi disables the main content until this task ends, which quick
+     * cell edits skip. A cancelled task never calls its successConsumer.
+     * With a cancellation, the Cancel button stops the task and the statements it registered there.
      */
-    private <T> void runBackgroundTask(Supplier<T> backgroundAction, Consumer<T> successConsumer) {
-        progressIndicator.setVisible(true);
-        centerVBox.setDisable(true); // Disable main content
+    private <T> Task<T> runBackgroundTask(String description, String serialKey, boolean blockUi, QueryCancellation cancellation,
+                                          Supplier<T> backgroundAction, Consumer<T> successConsumer) {
+        if (serialKey != null) {
+            editBuffer.flush(serialKey); // buffered edits to this table go first
+        }
+        setBusy(blockUi, +1);
 
         Task<T> task = new Task<>() {
             @Override
@@ -103,80 +163,280 @@ public class FxDb extends Application {
         };
 
         task.setOnSucceeded(event -> {
+            untrack(task);
+            setBusy(blockUi, -1);
             successConsumer.accept(task.getValue());
-            progressIndicator.setVisible(false);
-            centerVBox.setDisable(false);
         });
 
         task.setOnFailed(event -> {
+            untrack(task);
+            setBusy(blockUi, -1);
             Throwable e = task.getException();
             showError("Background Task Error", "An operation failed to complete.", e.getMessage());
             log("Error during background task: " + e.getMessage());
             e.printStackTrace();
-            progressIndicator.setVisible(false);
-            centerVBox.setDisable(false);
         });
 
-        new Thread(task).start();
+        task.setOnCancelled(event -> {
+            untrack(task);
+            setBusy(blockUi, -1);
+        });
+
+        if (cancellation != null) {
+            cancellableTasks.put(task, cancellation);
+            cancelQueriesButton.setVisible(true);
+        }
+        taskExecutor.submit(description, serialKey, task);
+        return task;
     }
 
-    @SuppressWarnings("unchecked")
-    private void loadTableData(String tableName) {
+    private void untrack(Task<?> task) {
+        cancellableTasks.remove(task);
+        cancelQueriesButton.setVisible(!cancellableTasks.isEmpty());
+    }
+
+    /** The Cancel button: stops every cancellable task, including statements already running on the server. */
+    private void handleCancelQueries() {
+        Map<Task<?>, QueryCancellation> running = new LinkedHashMap<>(cancellableTasks);
+        running.forEach((task, cancellation) -> {
+            cancellation.cancel();
+            task.cancel();
+        });
+        log("Cancelled " + running.size() + " running query task(s).");
+    }
+
+    /** A cancellation carrying the statement timeout currently set in the Execute SQL tab. */
+    private QueryCancellation newQueryCancellation() {
+        Integer seconds = queryTimeoutSpinner.getValue();
+        return new QueryCancellation(seconds == null ? 0 : seconds);
+    }
+
+    private void flushCellEdits(CellEditBuffer.Batch batch) {
         runBackgroundTask(
+                "Save " + batch.cellCount() + " edit(s) to '" + batch.tableName() + "'", batch.tableName(), false,
+                () -> {
+                    try {
+                        return dbHelper.applyCellEdits(batch);
+                    } catch (SQLException e) {
+                        if (isTransient(e)) {
+                            // Lost connection, deadlock, rollback: the same edits may well succeed next time. Not
+                            // a task failure, so no alert; the buffer backs off and the top bar shows the retry.
+                            Platform.runLater(() -> {
+                                editBuffer.requeue(batch);
+                                log("Could not save edits to '" + batch.tableName() + "', will retry: " + e.getMessage());
+                            });
+                            return null;
+                        }
+                        // Rejected by the server (bad value, constraint): retrying can't help, so the edits are
+                        // dropped and the cells go back to what the database holds.
+                        List<String> keys = batch.rows().stream().map(CellEditBuffer.RowEdit::keyValue).collect(Collectors.toList());
+                        Platform.runLater(() -> refreshRows(batch.tableName(), keys, false));
+                        throw new RuntimeException("Failed to save edits, they were discarded: " + e.getMessage(), e);
+                    }
+                },
+                conflicts -> {
+                    if (conflicts == null) {
+                        return; // requeued for a retry
+                    }
+                    editBuffer.writeSucceeded();
+                    int saved = batch.rows().size() - conflicts.size();
+                    log("Saved " + saved + " edited row(s) in '" + batch.tableName() + "'.");
+                    if (!conflicts.isEmpty()) {
+                        showError("Edit Conflict", conflicts.size() + " row(s) were changed or deleted by someone else and were not updated.",
+                                batch.keyColumn() + " = " + String.join(", ", conflicts));
+                        log("Conflicting rows in '" + batch.tableName() + "': " + conflicts + ". Reloading current values.");
+                        refreshRows(batch.tableName(), conflicts, false);
+                    }
+                }
+        );
+    }
+
+    /** Connection exceptions (SQLSTATE 08xxx) and deadlocks or rollbacks (40xxx) are worth retrying. */
+    private static boolean isTransient(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("08") || state.startsWith("40"));
+    }
+
+    private void setBusy(boolean blockUi, int delta) {
+        runningTasks += delta;
+        if (blockUi) {
+            blockingTasks += delta;
+        }
+        progressIndicator.setVisible(runningTasks > 0);
+        centerVBox.setDisable(blockingTasks > 0); // Disable main content
+    }
+
+    private void logTaskTiming(TaskExecutor.Timing timing) {
+        String outcome = timing.cancelled() ? " (cancelled)" : timing.failed() ? " (failed)" : "";
+        Platform.runLater(() -> log(String.format("[task] %s: %.1f ms, queued %.1f ms%s",
+                timing.name(), timing.runMillis(), timing.queuedMillis(), outcome)));
+    }
+
+    /**
+     * Shows a table through a PagedTableData: only the first page is read before the view appears,
+     * further pages are fetched by primary-key range as the user scrolls. The current search and sort go
+     * along as a RowQuery and are applied by the server.
+     * Starting a new load cancels one that has not finished yet (including its running query), so switching
+     * tables or typing a search never shows stale data.
+     */
+    private void loadTableData(String tableName) {
+        if (pendingLoad != null) {
+            pendingLoad.cancel();
+        }
+        if (pendingLoadCancellation != null) {
+            pendingLoadCancellation.cancel();
+        }
+        cancelCustomQuery(); // the grid is about to show the table instead
+        QueryCancellation cancellation = newQueryCancellation();
+        DatabaseHelper.RowQuery query = currentRowQuery();
+        pendingLoadCancellation = cancellation;
+        requestedQuery = query;
+        pendingLoad = runBackgroundTask(
+                "Load table '" + tableName + "'", tableName, !tableName.equals(displayedTable), cancellation,
                 () -> {
                     try {
-                        return dbHelper.getTableData(tableName);
+                        return PagedTableData.open(dbHelper, tableName, query, cancellation, PagedTableData.DEFAULT_PAGE_SIZE,
+                                PagedTableData.DEFAULT_MAX_RESIDENT_PAGES, taskExecutor.asExecutor(),
+                                e -> log("Error loading rows of '" + tableName + "': " + e.getMessage()));
                     } catch (SQLException e) {
+                        if (cancellation.isCancelled()) return null; // superseded by a newer load
                         throw new RuntimeException("Failed to get table data: " + e.getMessage(), e);
                     }
                 },
                 tableData -> {
-                    dataTableView.getColumns().clear();
-                    dataTableView.getItems().clear();
-                    rowSelectionMap.clear();
-
-                    TableColumn<ObservableList<String>, Boolean> selectCol = new TableColumn<>("Select");
-                    selectCol.setCellValueFactory(cd -> rowSelectionMap.computeIfAbsent(cd.getValue(), k -> new SimpleBooleanProperty(false)));
-                    selectCol.setCellFactory(CheckBoxTableCell.forTableColumn(selectCol));
-                    selectCol.setEditable(true);
-                    selectCol.setPrefWidth(50);
-                    dataTableView.getColumns().add(selectCol);
-
-                    for (int i = 0; i < tableData.headers().size(); i++) {
-                        final int colIndex = i;
-                        final String headerName = tableData.headers().get(i);
-                        TableColumn<ObservableList<String>, String> column = new TableColumn<>(headerName);
-                        column.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().get(colIndex)));
-
-                        if (i > 0) {
-                            column.setCellFactory(TextFieldTableCell.forTableColumn());
-                            column.setOnEditCommit(event -> {
-                                String pkValue = event.getRowValue().get(0);
-                                runBackgroundTask(
-                                        () -> {
-                                            try {
-                                                dbHelper.updateCellValue(tableName, headerName, event.getNewValue(), tableData.headers().get(0), pkValue);
-                                                return true; // Success
-                                            } catch (SQLException e) {
-                                                throw new RuntimeException("Failed to update cell: " + e.getMessage(), e);
-                                            }
-                                        },
-                                        success -> {
-                                            log("Updated cell in '" + tableName + "'.");
-                                            event.getRowValue().set(colIndex, event.getNewValue());
-                                        }
-                                );
-                            });
-                        }
-                        column.setPrefWidth(120);
-                        dataTableView.getColumns().add(column);
+                    if (tableData == null) return;
+                    if (pendingLoadCancellation == cancellation) {
+                        pendingLoad = null;
+                        pendingLoadCancellation = null;
+                    }
+                    if (!tableName.equals(tableListView.getSelectionModel().getSelectedItem()) || !query.equals(requestedQuery)) {
+                        tableData.close(); // finished just as the user switched to another table or query
+                        return;
+                    }
+                    boolean sameColumns = currentPagedData != null && tableName.equals(displayedTable)
+                            && currentPagedData.getHeaders().equals(tableData.getHeaders());
+                    closeCurrentPagedData();
+                    currentPagedData = tableData;
+                    if (!sameColumns) {
+                        buildDataColumns(tableName, tableData);
                     }
-                    dataTableView.setItems(tableData.rows());
-                    log("Displayed data for table '" + tableName + "'. Found " + tableData.rows().size() + " rows.");
+                    displayedTable = tableName;
+                    dataTableView.setItems(tableData);
+                    rowSelection.attach(tableData);
+                    String shown = tableData.isFullyLoaded() ? tableData.size() + " rows." : "first " + tableData.size() + " rows; more rows load as you scroll.";
+                    log(query.isFiltered()
+                            ? "Showing rows of '" + tableName + "' containing '" + query.search() + "': " + shown
+                            : "Displayed data for table '" + tableName + "'. Loaded " + shown);
                 }
         );
     }
 
+    /** Recreates the grid's columns for a table, keeping the server-side sort indicator on its column. */
+    @SuppressWarnings("unchecked")
+    private void buildDataColumns(String tableName, PagedTableData tableData) {
+        ignoreSortRequests = true;
+        try {
+            dataTableView.getColumns().clear();
+            dataTableView.setItems(FXCollections.observableArrayList()); // paged lists are read-only, so swap instead of clear()
+
+            // The checkboxes read and write rowSelection by row index; rows carry no selection state themselves.
+            TableColumn<List<String>, Void> selectCol = new TableColumn<>("Select");
+            selectCol.setCellFactory(col -> new TableCell<>() {
+                private final CheckBox checkBox = new CheckBox();
+
+                {
+                    checkBox.setOnAction(e -> rowSelection.set(getIndex(), checkBox.isSelected()));
+                }
+
+                @Override
+                protected void updateItem(Void item, boolean empty) {
+                    super.updateItem(item, empty);
+                    if (empty) {
+                        setGraphic(null);
+                    } else {
+                        checkBox.setSelected(rowSelection.isSelected(getIndex()));
+                        setGraphic(checkBox);
+                    }
+                }
+            });
+            selectCol.setSortable(false);
+            selectCol.setPrefWidth(50);
+            dataTableView.getColumns().add(selectCol);
+
+            for (int i = 0; i < tableData.getHeaders().size(); i++) {
+                final int colIndex = i;
+                final String headerName = tableData.getHeaders().get(i);
+                TableColumn<List<String>, String> column = new TableColumn<>(headerName);
+                column.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().get(colIndex)));
+                column.setUserData(headerName); // the column the server sorts by when this header is clicked
+
+                if (i > 0) {
+                    column.setCellFactory(TextFieldTableCell.forTableColumn());
+                    column.setOnEditCommit(event -> {
+                        // Buffered: written together with other edits by flushCellEdits().
+                        String pkValue = event.getRowValue().get(0);
+                        editBuffer.stage(tableName, tableData.getHeaders().get(0), pkValue, headerName,
+                                event.getOldValue(), event.getNewValue());
+                        event.getRowValue().set(colIndex, event.getNewValue());
+                    });
+                }
+                column.setPrefWidth(120);
+                dataTableView.getColumns().add(column);
+                if (headerName.equalsIgnoreCase(sortColumn)) {
+                    column.setSortType(sortDescending ? TableColumn.SortType.DESCENDING : TableColumn.SortType.ASCENDING);
+                    dataTableView.getSortOrder().setAll(column);
+                }
+            }
+            String selectedSearchColumn = searchColumnBox.getValue();
+            List<String> searchColumns = new ArrayList<>();
+            searchColumns.add(ALL_COLUMNS);
+            searchColumns.addAll(tableData.getHeaders());
+            searchColumnBox.setItems(FXCollections.observableArrayList(searchColumns));
+            searchColumnBox.setValue(searchColumns.contains(selectedSearchColumn) ? selectedSearchColumn : ALL_COLUMNS);
+        } finally {
+            ignoreSortRequests = false;
+        }
+    }
+
+    private DatabaseHelper.RowQuery currentRowQuery() {
+        String search = searchField.getText() == null ? "" : searchField.getText().trim();
+        String column = searchColumnBox.getValue() == null || ALL_COLUMNS.equals(searchColumnBox.getValue()) ? null : searchColumnBox.getValue();
+        return new DatabaseHelper.RowQuery(search.isEmpty() ? null : search, column, sortColumn, sortDescending);
+    }
+
+    /** Reloads the current table once the search or sort differs from what was last requested. */
+    private void applyRowQuery() {
+        String tableName = tableListView.getSelectionModel().getSelectedItem();
+        if (tableName != null && !currentRowQuery().equals(requestedQuery)) {
+            loadTableData(tableName);
+        }
+    }
+
+    /** Header clicks on a paged table become a server-side ORDER BY instead of sorting the loaded rows. */
+    @SuppressWarnings("unchecked")
+    private boolean sortDataTable(TableView<List<String>> table) {
+        if (currentPagedData == null) {
+            return TableView.DEFAULT_SORT_POLICY.call(table); // custom query results are sorted in memory
+        }
+        if (ignoreSortRequests) {
+            return true;
+        }
+        TableColumn<List<String>, ?> column = table.getSortOrder().isEmpty() ? null : table.getSortOrder().get(0);
+        sortColumn = column == null ? null : (String) column.getUserData();
+        sortDescending = column != null && column.getSortType() == TableColumn.SortType.DESCENDING;
+        applyRowQuery();
+        return true;
+    }
+
+    /** A new table starts unfiltered and in key order. */
+    private void resetRowQuery() {
+        searchDebounce.stop();
+        searchField.clear();
+        searchColumnBox.setValue(ALL_COLUMNS);
+        sortColumn = null;
+        sortDescending = false;
+    }
+
     //<editor-fold desc="UI Creation Methods">
     private StackPane createCenterPanel() {
         currentTableLabel = new Label("No Table Selected");
@@ -198,15 +458,63 @@ public class FxDb extends Application {
         duplicateRowButton.setOnAction(e -> handleDuplicateRow());
         duplicateRowButton.setStyle("-fx-background-color: #a9d18e;");
 
-        HBox topBar = new HBox(15, currentTableLabel, refreshDataButton, duplicateRowButton, deleteSelectedButton);
+        Button exportButton = new Button("Export...");
+        exportButton.setOnAction(e -> handleExportTable());
+
+        Button saveChangesButton = new Button("Save Changes");
+        saveChangesButton.setOnAction(e -> editBuffer.flushAll());
+        saveChangesButton.disableProperty().bind(editBuffer.pendingCountProperty().isEqualTo(0));
+
+        Label pendingChangesLabel = new Label();
+        pendingChangesLabel.textProperty().bind(Bindings.when(editBuffer.pendingCountProperty().isEqualTo(0))
+                .then("")
+                .otherwise(editBuffer.pendingCountProperty().asString("%d unsaved change(s)")));
+        pendingChangesLabel.setStyle("-fx-text-fill: #c07000; -fx-font-weight: bold;");
+
+        Label saveRetryLabel = new Label();
+        saveRetryLabel.textProperty().bind(Bindings.when(editBuffer.failedWritesProperty().isEqualTo(0))
+                .then("")
+                .otherwise(editBuffer.failedWritesProperty().asString("Saving edits failed, retrying (%d attempt(s))")));
+        saveRetryLabel.setStyle("-fx-text-fill: #c00000; -fx-font-weight: bold;");
+
+        HBox topBar = new HBox(15, currentTableLabel, refreshDataButton, duplicateRowButton, deleteSelectedButton,
+                exportButton, saveChangesButton, pendingChangesLabel, saveRetryLabel);
         topBar.setAlignment(Pos.CENTER_LEFT);
 
+        searchField = new TextField();
+        searchField.setPromptText("Search rows (matched on the server)");
+        searchField.setPrefWidth(300);
+        searchColumnBox = new ComboBox<>(FXCollections.observableArrayList(ALL_COLUMNS));
+        searchColumnBox.setValue(ALL_COLUMNS);
+        Button clearSearchButton = new Button("Clear");
+        clearSearchButton.setOnAction(e -> searchField.clear());
+        // Typing restarts the debounce, so a search runs once the user pauses rather than on every key.
+        searchDebounce.setOnFinished(e -> applyRowQuery());
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> searchDebounce.playFromStart());
+        searchColumnBox.valueProperty().addListener((obs, oldVal, newVal) -> searchDebounce.playFromStart());
+        Button selectAllButton = new Button("Select All");
+        selectAllButton.setOnAction(e -> {
+            rowSelection.selectAll();
+            dataTableView.refresh();
+        });
+        Button invertSelectionButton = new Button("Invert Selection");
+        invertSelectionButton.setOnAction(e -> {
+            rowSelection.invert();
+            dataTableView.refresh();
+        });
+        Label selectedCountLabel = new Label();
+        selectedCountLabel.textProperty().bind(rowSelection.countProperty().asString("%d selected"));
+        HBox filterBar = new HBox(10, new Label("Search:"), searchField, new Label("in"), searchColumnBox, clearSearchButton,
+                selectAllButton, invertSelectionButton, selectedCountLabel);
+        filterBar.setAlignment(Pos.CENTER_LEFT);
+
         dataTableView = new TableView<>();
         dataTableView.setEditable(true);
         dataTableView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         dataTableView.setPlaceholder(new Label("Select a table from the list on the left to view its data."));
+        dataTableView.setSortPolicy(this::sortDataTable);
 
-        centerVBox = new VBox(10, topBar, dataTableView);
+        centerVBox = new VBox(10, topBar, filterBar, dataTableView);
         centerVBox.setPadding(new Insets(10));
         VBox.setVgrow(dataTableView, Priority.ALWAYS);
 
@@ -214,7 +522,15 @@ public class FxDb extends Application {
         progressIndicator.setVisible(false);
         progressIndicator.setMaxSize(100, 100);
 
-        centerStackPane = new StackPane(centerVBox, progressIndicator);
+        // Outside centerVBox, so it stays clickable while a blocking task has disabled the main content.
+        cancelQueriesButton = new Button("Cancel");
+        cancelQueriesButton.setVisible(false);
+        cancelQueriesButton.setOnAction(e -> handleCancelQueries());
+        VBox busyOverlay = new VBox(10, progressIndicator, cancelQueriesButton);
+        busyOverlay.setAlignment(Pos.CENTER);
+        busyOverlay.setPickOnBounds(false); // clicks away from the indicator and button reach the grid
+
+        centerStackPane = new StackPane(centerVBox, busyOverlay);
         return centerStackPane;
     }
 
@@ -224,10 +540,11 @@ public class FxDb extends Application {
         tableListView = new ListView<>();
         Button refreshBtn = new Button("Refresh List");
         refreshBtn.setMaxWidth(Double.MAX_VALUE);
-        refreshBtn.setOnAction(e -> refreshTableList());
+        refreshBtn.setOnAction(e -> refreshTableList(true));
         VBox leftPanel = new VBox(10, label, tableListView, refreshBtn);
         tableListView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
+                resetRowQuery();
                 loadTableData(newVal);
                 updateActionPanelForTable(newVal);
             }
@@ -450,18 +767,30 @@ public class FxDb extends Application {
         Button executeFromFileButton = new Button("Execute from File...");
         executeFromFileButton.setMaxWidth(Double.MAX_VALUE);
         executeFromFileButton.setOnAction(e -> handleExecuteSqlFromFile());
-        VBox sqlBox = new VBox(15, title, customSqlArea, executeSqlButton, executeFromFileButton);
+        queryTimeoutSpinner = new Spinner<>(0, 3600, 30, 5);
+        queryTimeoutSpinner.setEditable(true);
+        queryTimeoutSpinner.setPrefWidth(90);
+        HBox timeoutBox = new HBox(10, new Label("Query timeout (seconds, 0 = none):"), queryTimeoutSpinner);
+        timeoutBox.setAlignment(Pos.CENTER_LEFT);
+        deleteChunkSpinner = new Spinner<>(1, 100_000, DatabaseHelper.DEFAULT_DELETE_CHUNK_SIZE, 100);
+        deleteChunkSpinner.setEditable(true);
+        deleteChunkSpinner.setPrefWidth(90);
+        HBox deleteChunkBox = new HBox(10, new Label("Rows per delete transaction:"), deleteChunkSpinner);
+        deleteChunkBox.setAlignment(Pos.CENTER_LEFT);
+        VBox sqlBox = new VBox(15, title, customSqlArea, timeoutBox, deleteChunkBox, executeSqlButton, executeFromFileButton);
         sqlBox.setPadding(new Insets(15));
         return sqlBox;
     }
     //</editor-fold>
 
     //<editor-fold desc="Event Handlers and Logic">
-    private void refreshTableList() {
+    /** With reloadSchema the cached schema is reloaded from the database; otherwise only invalidated parts are. */
+    private void refreshTableList(boolean reloadSchema) {
         runBackgroundTask(
+                "Refresh table list", null, true,
                 () -> {
                     try {
-                        return dbHelper.getTableNames();
+                        return reloadSchema ? dbHelper.refreshSchema() : dbHelper.getTableNames();
                     } catch (SQLException e) {
                         throw new RuntimeException("Could not fetch table list: " + e.getMessage(), e);
                     }
@@ -473,61 +802,76 @@ public class FxDb extends Application {
         );
     }
 
+    /** Reads the table's columns on a background task, then rebuilds the Insert form and the Drop Column choices. */
     private void updateActionPanelForTable(String tableName) {
+        currentTableLabel.setText("Table: " + tableName);
+        insertForm.getChildren().clear();
+        runBackgroundTask(
+                "Load columns of '" + tableName + "'", tableName, false,
+                () -> {
+                    try {
+                        return dbHelper.getColumnNames(tableName);
+                    } catch (SQLException e) {
+                        throw new RuntimeException("Could not load the columns of '" + tableName + "': " + e.getMessage(), e);
+                    }
+                },
+                columnNames -> showActionPanel(tableName, columnNames)
+        );
+    }
+
+    private void showActionPanel(String tableName, List<String> columnNames) {
+        if (!tableName.equals(tableListView.getSelectionModel().getSelectedItem())) {
+            return; // another table was selected in the meantime
+        }
         currentTableLabel.setText("Table: " + tableName);
         insertForm.getChildren().clear();
         GridPane insertGrid = new GridPane();
         insertGrid.setHgap(10);
         insertGrid.setVgap(10);
-        try {
-            List<String> columnNames = dbHelper.getColumnNames(tableName);
-            dropColumnComboBox.setItems(FXCollections.observableArrayList(columnNames));
-            dropColumnComboBox.getSelectionModel().clearSelection();
-            for (int i = 0; i < columnNames.size(); i++) {
-                Label label = new Label(columnNames.get(i) + ":");
-                TextField field = new TextField();
-                field.setId("insertField_" + columnNames.get(i));
-                insertGrid.add(label, 0, i);
-                insertGrid.add(field, 1, i);
-            }
-            Button insertButton = new Button("Insert New Row");
-            insertButton.setMaxWidth(Double.MAX_VALUE);
-            insertButton.setOnAction(e -> handleInsert(tableName, columnNames, insertGrid));
-            insertForm.getChildren().addAll(insertGrid, insertButton);
-        } catch (SQLException e) {
-            insertForm.getChildren().add(new Label("Error loading form: " + e.getMessage()));
-            log("Error creating insert form for '" + tableName + "': " + e.getMessage());
+        dropColumnComboBox.setItems(FXCollections.observableArrayList(columnNames));
+        dropColumnComboBox.getSelectionModel().clearSelection();
+        for (int i = 0; i < columnNames.size(); i++) {
+            Label label = new Label(columnNames.get(i) + ":");
+            TextField field = new TextField();
+            field.setId("insertField_" + columnNames.get(i));
+            insertGrid.add(label, 0, i);
+            insertGrid.add(field, 1, i);
         }
+        Button insertButton = new Button("Insert New Row");
+        insertButton.setMaxWidth(Double.MAX_VALUE);
+        insertButton.setOnAction(e -> handleInsert(tableName, columnNames, insertGrid));
+        insertForm.getChildren().addAll(insertGrid, insertButton);
     }
 
     private void handleDuplicateRow() {
         String tableName = getSelectedTable();
         if (tableName == null) return;
 
-        ObservableList<ObservableList<String>> selectedItems = dataTableView.getSelectionModel().getSelectedItems();
+        ObservableList<List<String>> selectedItems = dataTableView.getSelectionModel().getSelectedItems();
         if (selectedItems.size() != 1) {
             showError("Selection Error", "Please select exactly one row to duplicate.", "You have selected " + selectedItems.size() + " rows.");
             return;
         }
 
-        ObservableList<String> rowToDuplicate = selectedItems.get(0);
+        if (currentPagedData == null || !tableName.equals(displayedTable)) {
+            showError("Selection Error", "The selected row is not from table '" + tableName + "'.", null);
+            return;
+        }
+        List<String> rowToDuplicate = selectedItems.get(0);
         actionTabPane.getSelectionModel().select(1); // Select Insert tab
 
-        try {
-            List<String> columnNames = dbHelper.getColumnNames(tableName);
-            for (int i = 0; i < columnNames.size(); i++) {
-                if (i == 0) continue; // Skip PK
-
-                String colName = columnNames.get(i);
-                TextField field = (TextField) insertForm.lookup("#insertField_" + colName);
-                if (field != null) {
-                    field.setText(rowToDuplicate.get(i));
-                }
+        // The grid's own headers name the row's cells, so no schema lookup is needed here.
+        List<String> columnNames = currentPagedData.getHeaders();
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (i == 0) continue; // Skip PK
+
+            String colName = columnNames.get(i);
+            TextField field = (TextField) insertForm.lookup("#insertField_" + colName);
+            if (field != null) {
+                field.setText(rowToDuplicate.get(i));
             }
-            log("Insert form pre-filled. Modify and click Insert.");
-        } catch (SQLException e) {
-            showError("Error", "Could not get column names to pre-fill form.", e.getMessage());
         }
+        log("Insert form pre-filled. Modify and click Insert.");
     }
 
     private void handleInsert(String tableName, List<String> columnNames, GridPane grid) {
@@ -544,17 +888,20 @@ public class FxDb extends Application {
         }
 
         runBackgroundTask(
+                "Insert into '" + tableName + "'", tableName, true,
                 () -> {
                     try {
-                        dbHelper.insertRow(tableName, values);
-                        return true;
+                        return Optional.ofNullable(dbHelper.insertRow(tableName, values));
                     } catch (SQLException e) {
                         throw new RuntimeException("Could not insert row: " + e.getMessage(), e);
                     }
                 },
-                success -> {
+                key -> {
                     log("Successfully inserted a new row into '" + tableName + "'.");
-                    loadTableData(tableName);
+                    if (tableName.equals(displayedTable) && currentPagedData != null
+                            && (key.isEmpty() || !currentPagedData.rowsInserted(List.of(key.get())))) {
+                        loadTableData(tableName); // no key, or a view not paged by key: can't tell where it goes
+                    }
                     for (Node node : grid.getChildren()) {
                         if (node instanceof TextField) {
                             ((TextField) node).clear();
@@ -586,6 +933,7 @@ public class FxDb extends Application {
 
             if (confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
                 runBackgroundTask(
+                        "Create table '" + tableName + "'", null, true,
                         () -> {
                             try {
                                 return dbHelper.executeUpdateOrDelete(sql);
@@ -599,7 +947,7 @@ public class FxDb extends Application {
                             createTableDefView.getItems().setAll(
                                 new ColumnDefinition("id", "INT", "11", true, true, true, true, false, "", "Primary Key Identifier")
                             );
-                            refreshTableList();
+                            refreshTableList(false);
                         }
                 );
             }
@@ -696,19 +1044,21 @@ public class FxDb extends Application {
 
         if (confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
             runBackgroundTask(
+                    "Add column to '" + tableName + "'", tableName, true,
                     () -> {
                         try {
-                            return dbHelper.executeUpdateOrDelete(sql);
+                            dbHelper.executeUpdateOrDelete(sql);
+                            return dbHelper.getColumnNames(tableName); // the schema is reloaded here, off the FX thread
                         } catch (SQLException e) {
                             throw new RuntimeException("Could not add column: " + e.getMessage(), e);
                         }
                     },
-                    rowsAffected -> {
+                    columnNames -> {
                         log("Successfully added column '" + newColName + "' to '" + tableName + "'.");
                         addColumnNameField.clear();
                         addColumnSizeField.clear();
                         loadTableData(tableName);
-                        updateActionPanelForTable(tableName);
+                        showActionPanel(tableName, columnNames);
                     }
             );
         }
@@ -729,17 +1079,19 @@ public class FxDb extends Application {
         if (confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
             String sql = "ALTER TABLE `" + tableName + "` DROP COLUMN `" + columnToDrop + "`";
             runBackgroundTask(
+                    "Drop column of '" + tableName + "'", tableName, true,
                     () -> {
                         try {
-                            return dbHelper.executeUpdateOrDelete(sql);
+                            dbHelper.executeUpdateOrDelete(sql);
+                            return dbHelper.getColumnNames(tableName); // the schema is reloaded here, off the FX thread
                         } catch (SQLException e) {
                             throw new RuntimeException("Could not drop column: " + e.getMessage(), e);
                         }
                     },
-                    rowsAffected -> {
+                    columnNames -> {
                         log("Successfully dropped column '" + columnToDrop + "' from '" + tableName + "'.");
                         loadTableData(tableName);
-                        updateActionPanelForTable(tableName);
+                        showActionPanel(tableName, columnNames);
                     }
             );
         }
@@ -748,36 +1100,51 @@ public class FxDb extends Application {
     private void handleDeleteSelectedRows() {
         String tableName = getSelectedTable();
         if (tableName == null) return;
-        List<ObservableList<String>> rowsToDelete = rowSelectionMap.entrySet().stream()
-                .filter(entry -> entry.getValue().get())
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-        if (rowsToDelete.isEmpty()) {
+        if (rowSelection.getCount() == 0 || currentPagedData == null) {
             showError("No Selection", "No rows selected for deletion.", null);
             return;
         }
+        // The keys of selected rows that have been scrolled out of memory are read back first.
+        PagedTableData view = currentPagedData;
+        view.resolveValues(rowSelection.indexes(), 0, pkValues -> {
+            if (view == currentPagedData) confirmDeleteRows(tableName, view.getHeaders().get(0), pkValues);
+        });
+    }
 
+    /** pkColumnName is the grid's first column, the one whose values were resolved. */
+    private void confirmDeleteRows(String tableName, String pkColumnName, List<String> pkValues) {
         try {
-            String pkColumnName = dbHelper.getColumnNames(tableName).get(0);
-            List<String> pkValues = rowsToDelete.stream().map(row -> row.get(0)).collect(Collectors.toList());
             Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
             confirm.setTitle("Confirm Deletion");
             confirm.setHeaderText("Delete " + pkValues.size() + " row(s) from table '" + tableName + "'?");
             confirm.setContentText("This action cannot be undone.");
 
             if (confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
+                // Deleted in short per-chunk transactions; each committed chunk leaves the grid right away, so
+                // the view never has to be reloaded and a cancelled or failed delete shows what is really gone.
+                Integer chunkSize = deleteChunkSpinner.getValue();
+                QueryCancellation cancellation = newQueryCancellation();
+                int[] done = {0};
                 runBackgroundTask(
+                        "Delete rows of '" + tableName + "'", tableName, true, cancellation,
                         () -> {
                             try {
-                                dbHelper.deleteMultipleRows(tableName, pkColumnName, pkValues);
-                                return pkValues.size();
+                                return dbHelper.deleteMultipleRows(tableName, pkColumnName, pkValues,
+                                        chunkSize == null ? DatabaseHelper.DEFAULT_DELETE_CHUNK_SIZE : chunkSize, cancellation,
+                                        keys -> Platform.runLater(() -> {
+                                            done[0] += keys.size();
+                                            removeDeletedRows(tableName, pkColumnName, keys);
+                                            log("Deleting from '" + tableName + "': " + done[0] + " of " + pkValues.size() + " row(s) done.");
+                                        }));
                             } catch (SQLException e) {
-                                throw new RuntimeException("Could not delete rows: " + e.getMessage(), e);
+                                throw new RuntimeException("Could not delete rows (rows of committed chunks stay deleted): "
+                                        + e.getMessage(), e);
                             }
                         },
-                        deletedCount -> {
-                            log("Successfully deleted " + deletedCount + " rows from '" + tableName + "'.");
-                            loadTableData(tableName);
+                        report -> {
+                            log("Deleted rows from '" + tableName + "': " + report + ".");
+                            rowSelection.clear(); // all of it was deleted, including rows not in memory
+                            dataTableView.refresh();
                         }
                 );
             }
@@ -786,6 +1153,58 @@ public class FxDb extends Application {
         }
     }
 
+    /** Takes rows deleted from the database out of the grid and the selection, if that table is still shown. */
+    private void removeDeletedRows(String tableName, String keyColumn, List<String> keys) {
+        if (currentPagedData == null || !tableName.equals(displayedTable)) {
+            return;
+        }
+        currentPagedData.removeRows(keyColumn, new HashSet<>(keys)); // their ticks go with them
+    }
+
+    /**
+     * Re-reads just the rows with the given primary keys and patches them into the grid; rows gone from the
+     * table leave it. With keys null (too many rows, or no primary key) the whole view is reloaded instead, as
+     * it is with reloadIfGone when a row vanished (an UPDATE that changed the key).
+     */
+    private void refreshRows(String tableName, List<String> keys, boolean reloadIfGone) {
+        PagedTableData view = currentPagedData;
+        if (view == null || !tableName.equals(displayedTable)) {
+            return; // not shown; it is read fresh when selected
+        }
+        String keyColumn = view.getPrimaryKeyColumn();
+        if (keys == null || keyColumn == null) {
+            loadTableData(tableName);
+            return;
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        runBackgroundTask(
+                "Refresh " + keys.size() + " row(s) of '" + tableName + "'", tableName, false,
+                () -> {
+                    try {
+                        return dbHelper.getRowsByKey(tableName, keyColumn, keys);
+                    } catch (SQLException e) {
+                        throw new RuntimeException("Could not re-read changed rows: " + e.getMessage(), e);
+                    }
+                },
+                fresh -> {
+                    if (view != currentPagedData) return; // the view was reloaded meanwhile
+                    int keyIndex = fresh.getHeaders().indexOf(keyColumn);
+                    Set<String> gone = new HashSet<>(keys);
+                    for (int row = 0; row < fresh.getRowCount(); row++) {
+                        gone.remove(fresh.getValue(row, keyIndex));
+                    }
+                    if (!gone.isEmpty() && reloadIfGone) {
+                        loadTableData(tableName);
+                        return;
+                    }
+                    removeDeletedRows(tableName, keyColumn, new ArrayList<>(gone));
+                    view.updateRows(fresh);
+                }
+        );
+    }
+
     private void handleUpdate() {
         String tableName = getSelectedTable();
         if (tableName == null) return;
@@ -797,16 +1216,17 @@ public class FxDb extends Application {
         }
         String sql = "UPDATE `" + tableName + "` SET " + setClause + " WHERE " + whereClause;
         runBackgroundTask(
+                "Update '" + tableName + "'", tableName, true,
                 () -> {
                     try {
-                        return dbHelper.executeUpdateOrDelete(sql);
+                        return dbHelper.executeKeyedChange(tableName, sql, whereClause, DELTA_REFRESH_MAX_ROWS);
                     } catch (SQLException e) {
                         throw new RuntimeException("Update failed: " + e.getMessage(), e);
                     }
                 },
-                rowsAffected -> {
-                    log("Update successful. " + rowsAffected + " row(s) affected in '" + tableName + "'.");
-                    loadTableData(tableName);
+                change -> {
+                    log("Update successful. " + change.rowsAffected() + " row(s) affected in '" + tableName + "'.");
+                    refreshRows(tableName, change.keys(), true);
                 }
         );
     }
@@ -826,16 +1246,21 @@ public class FxDb extends Application {
         }
         String sql = "DELETE FROM `" + tableName + "`" + (whereClause.isEmpty() ? "" : " WHERE " + whereClause);
         runBackgroundTask(
+                "Delete from '" + tableName + "'", tableName, true,
                 () -> {
                     try {
-                        return dbHelper.executeUpdateOrDelete(sql);
+                        return dbHelper.executeKeyedChange(tableName, sql, whereClause, DELTA_REFRESH_MAX_ROWS);
                     } catch (SQLException e) {
                         throw new RuntimeException("Delete failed: " + e.getMessage(), e);
                     }
                 },
-                rowsAffected -> {
-                    log("Delete successful. " + rowsAffected + " row(s) deleted from '" + tableName + "'.");
-                    loadTableData(tableName);
+                change -> {
+                    log("Delete successful. " + change.rowsAffected() + " row(s) deleted from '" + tableName + "'.");
+                    if (change.keys() == null || currentPagedData == null || currentPagedData.getPrimaryKeyColumn() == null) {
+                        loadTableData(tableName);
+                    } else {
+                        removeDeletedRows(tableName, currentPagedData.getPrimaryKeyColumn(), change.keys());
+                    }
                 }
         );
     }
@@ -850,6 +1275,7 @@ public class FxDb extends Application {
         if (confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
             String sql = "DROP TABLE `" + tableName + "`";
             runBackgroundTask(
+                    "Drop table '" + tableName + "'", tableName, true,
                     () -> {
                         try {
                             return dbHelper.executeUpdateOrDelete(sql);
@@ -859,9 +1285,10 @@ public class FxDb extends Application {
                     },
                     rowsAffected -> {
                         log("Table '" + tableName + "' was successfully dropped.");
-                        refreshTableList();
+                        refreshTableList(false);
+                        closeCurrentPagedData();
                         dataTableView.getColumns().clear();
-                        dataTableView.getItems().clear();
+                        dataTableView.setItems(FXCollections.observableArrayList());
                         currentTableLabel.setText("No Table Selected");
                     }
             );
@@ -875,25 +1302,37 @@ public class FxDb extends Application {
             return;
         }
 
+        QueryCancellation cancellation = newQueryCancellation();
         if (sql.trim().toLowerCase().startsWith("select")) {
+            // Not blocking: rows appear as they stream in, and the grid stays usable while the query runs.
+            cancelCustomQuery();
+            customQuery = cancellation;
+            ObservableList<List<String>> resultRows = FXCollections.observableArrayList();
             runBackgroundTask(
+                    "Custom query", null, false, cancellation,
                     () -> {
                         try {
-                            return dbHelper.executeGenericQuery(sql);
+                            return dbHelper.streamQuery(sql, cancellation, RESULT_CHUNK_ROWS,
+                                    chunk -> Platform.runLater(() -> showQueryChunk(cancellation, resultRows, chunk)));
                         } catch (SQLException e) {
+                            if (e instanceof SQLTimeoutException) {
+                                throw new RuntimeException("The query ran longer than " + cancellation.getTimeoutSeconds()
+                                        + " s and was stopped; the rows read so far are shown.", e);
+                            }
                             throw new RuntimeException(e);
                         }
                     },
-                    resultData -> {
-                        displayQueryResult(resultData);
-                        log("Executed SELECT query. " + resultData.rows().size() + " rows returned.");
+                    rowCount -> {
+                        if (customQuery == cancellation) customQuery = null;
+                        log("Executed SELECT query. " + rowCount + " rows returned.");
                     }
             );
         } else {
             runBackgroundTask(
+                    "Custom command", null, true, cancellation,
                     () -> {
                         try {
-                            return dbHelper.executeUpdateOrDelete(sql);
+                            return dbHelper.executeUpdateOrDelete(sql, cancellation);
                         } catch (SQLException e) {
                             throw new RuntimeException(e);
                         }
@@ -905,12 +1344,30 @@ public class FxDb extends Application {
                         info.setContentText(rowsAffected + " row(s) were affected.");
                         info.showAndWait();
                         log("Executed non-query command. " + rowsAffected + " row(s) affected.");
-                        refreshTableList();
+                        refreshTableList(false);
                     }
             );
         }
     }
 
+    /** Adds one streamed chunk of a custom query to the grid; the first one also sets up the columns. */
+    private void showQueryChunk(QueryCancellation query, ObservableList<List<String>> resultRows, ColumnarTable chunk) {
+        if (customQuery != query) {
+            return; // the grid has moved on to a table or a newer query
+        }
+        if (dataTableView.getItems() != resultRows) {
+            displayQueryResult(chunk.getHeaders(), resultRows);
+        }
+        resultRows.addAll(chunk.rows());
+    }
+
+    private void cancelCustomQuery() {
+        if (customQuery != null) {
+            customQuery.cancel();
+            customQuery = null;
+        }
+    }
+
     private void handleExecuteSqlFromFile() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Open SQL Script File");
@@ -918,34 +1375,66 @@ public class FxDb extends Application {
         File file = fileChooser.showOpenDialog(primaryStage);
         if (file != null) {
             runBackgroundTask(
+                    "Run script '" + file.getName() + "'", null, true,
                     () -> {
+                        // Memory-mapped and split ahead on worker threads; executed in order on one connection.
                         try {
-                            String content = new String(Files.readAllBytes(file.toPath()));
-                            String[] statements = content.split(";(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-                            int successCount = 0;
-                            int failCount = 0;
-                            for (String stmt : statements) {
-                                if (stmt.trim().isEmpty()) continue;
-                                try {
-                                    dbHelper.executeUpdateOrDelete(stmt);
-                                    successCount++;
-                                } catch (SQLException e) {
-                                    failCount++;
-                                    log("Error in script '" + file.getName() + "': " + e.getMessage());
-                                }
-                            }
-                            return "Executed script '" + file.getName() + "'. Success: " + successCount + ", Failed: " + failCount + ".";
+                            SqlScriptRunner.Result result = dbHelper.executeScript(file.toPath(),
+                                    message -> Platform.runLater(() -> log("[" + file.getName() + "] " + message)));
+                            return String.format("Executed script '%s'. Success: %d, Failed: %d (%.1f s, %.0f statements/s).",
+                                    file.getName(), result.executed(), result.failed(),
+                                    result.elapsedNanos() / 1e9, result.statementsPerSecond());
                         } catch (IOException e) {
                             throw new RuntimeException("Could not read file: " + e.getMessage(), e);
+                        } catch (SQLException e) {
+                            throw new RuntimeException("Could not run script: " + e.getMessage(), e);
                         }
                     },
                     resultMessage -> {
                         log(resultMessage);
-                        refreshTableList();
+                        refreshTableList(false);
                     }
             );
         }
     }
+
+    private void handleExportTable() {
+        String tableName = getSelectedTable();
+        if (tableName == null) return;
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Table '" + tableName + "'");
+        fileChooser.setInitialFileName(tableName);
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+                new FileChooser.ExtensionFilter("TSV Files", "*.tsv"),
+                new FileChooser.ExtensionFilter("Binary Columnar Files", "*.fxcol"));
+        File file = fileChooser.showSaveDialog(primaryStage);
+        if (file == null) return;
+
+        TableExporter.Format format = TableExporter.Format.forFileName(file.getName());
+        if (format == null) {
+            int chosen = fileChooser.getExtensionFilters().indexOf(fileChooser.getSelectedExtensionFilter());
+            format = TableExporter.Format.values()[Math.max(0, chosen)];
+            file = new File(file.getPath() + "." + format.extension());
+        }
+        TableExporter.Format exportFormat = format;
+        File target = file;
+        runBackgroundTask(
+                "Export '" + tableName + "' to " + target.getName(), tableName, false,
+                () -> {
+                    try {
+                        return dbHelper.exportTable(tableName, target.toPath(), exportFormat,
+                                message -> Platform.runLater(() -> log("[export " + tableName + "] " + message)));
+                    } catch (IOException | SQLException e) {
+                        throw new RuntimeException("Export failed: " + e.getMessage(), e);
+                    }
+                },
+                report -> log(String.format("Exported %,d rows of '%s' to %s: %,d bytes in %.1f s (%.0f rows/s, %.1f MB/s, %d slice(s)).",
+                        report.rows(), tableName, target.getName(), report.bytes(), report.elapsedNanos() / 1e9,
+                        report.rowsPerSecond(), report.megabytesPerSecond(), report.slices()))
+        );
+    }
     //</editor-fold>
 
     //<editor-fold desc="Utility Methods">
@@ -958,21 +1447,31 @@ public class FxDb extends Application {
         return selected;
     }
 
-    private void displayQueryResult(DatabaseHelper.TableData tableData) {
+    /** Sets up the grid for a query result; rows may still grow while the query streams. */
+    private void displayQueryResult(List<String> headers, ObservableList<List<String>> rows) {
+        closeCurrentPagedData();
         dataTableView.getColumns().clear();
-        dataTableView.getItems().clear();
-        rowSelectionMap.clear();
+        dataTableView.setItems(FXCollections.observableArrayList());
+        rowSelection.attach(null);
         currentTableLabel.setText("Custom Query Result");
         actionTabPane.getSelectionModel().select(actionTabPane.getTabs().size() - 1);
 
-        for (int i = 0; i < tableData.headers().size(); i++) {
+        for (int i = 0; i < headers.size(); i++) {
             final int colIndex = i;
-            TableColumn<ObservableList<String>, String> column = new TableColumn<>(tableData.headers().get(i));
+            TableColumn<List<String>, String> column = new TableColumn<>(headers.get(i));
             column.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().get(colIndex)));
             column.setEditable(false);
             dataTableView.getColumns().add(column);
         }
-        dataTableView.setItems(tableData.rows());
+        dataTableView.setItems(rows);
+    }
+
+    private void closeCurrentPagedData() {
+        if (currentPagedData != null) {
+            currentPagedData.close();
+            currentPagedData = null;
+        }
+        displayedTable = null;
     }
 
     private void log(String message) {
@@ -0,0 +1,287 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background writer for Cons' calculation_history. submit() only enqueues; a single writer thread inserts
+ * the queued entries with JDBC batches every flushInterval, or as soon as flushThreshold entries are waiting.
+ * - The queue is lock-free (ConcurrentLinkedQueue) and bounded by a counter: when it is full, submit() waits
+ *   for the writer to catch up (backpressure) and gives up after the submit timeout.
+ * - When a batch can't be written (MySQL unreachable, pool exhausted), its entries are appended to a local
+ *   spool file instead and replayed, oldest first, before the next batch once the database answers again.
+ *   Entries keep the time they were calculated at, so replayed rows sort where they belong.
+ * - An entry the server rejects for good (say, an expression too long for its column) is logged and dropped,
+ *   so it can neither block the batch it came in nor get the spool stuck.
+ * - close() writes (or spools) everything still queued before it returns.
+ */
+public final class HistoryWriter implements AutoCloseable {
+
+    private record Entry(String expression, double result, String mode, long calculatedAt) {}
+
+    /** How many entries, from the start, were written or dropped; error is why the rest weren't (or null). */
+    private record Progress(int done, SQLException error) {}
+
+    private static final String INSERT_SQL =
+            "INSERT INTO calculation_history (expression, result, calculation_mode, calculated_at) VALUES (?, ?, ?, ?)";
+    private static final long SUBMIT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int MAX_BATCH = 500;
+
+    private final ConnectionPool pool;
+    private final Path spoolFile;
+    private final int capacity;
+    private final int flushThreshold;
+    private final long flushIntervalNanos;
+
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong handled = new AtomicLong(); // written or spooled
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong spooled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public HistoryWriter(ConnectionPool pool, Path spoolFile, int capacity, int flushThreshold, long flushIntervalMillis) {
+        this.pool = pool;
+        this.spoolFile = spoolFile;
+        this.capacity = capacity;
+        this.flushThreshold = flushThreshold;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.writer = new Thread(this::writeLoop, "history-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a calculation. Blocks while the queue is full; returns false if it stayed full for the
+     * submit timeout or the writer is closed, in which case the calculation is not recorded.
+     */
+    public boolean submit(String expression, double result, String mode) {
+        if (closed) return false;
+        long deadline = System.nanoTime() + SUBMIT_TIMEOUT_NANOS;
+        while (true) {
+            int size = queued.get();
+            if (size < capacity && queued.compareAndSet(size, size + 1)) break;
+            if (System.nanoTime() >= deadline || closed) return false;
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        queue.add(new Entry(expression, result, mode, System.currentTimeMillis()));
+        if (submitted.incrementAndGet() - handled.get() >= flushThreshold) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /** Waits (up to timeoutMillis) until everything submitted so far has been written or spooled. */
+    public boolean flush(long timeoutMillis) {
+        long target = submitted.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (handled.get() < target) {
+            if (System.nanoTime() >= deadline || !writer.isAlive()) return false;
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    public String summary() {
+        return String.format("%d written, %d spooled, %d rejected, %d pending",
+                written.get(), spooled.get(), rejected.get(), queued.get());
+    }
+
+    /** Stops accepting calculations and writes (or spools) the pending ones before returning. */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        replaySpool();
+        while (true) {
+            boolean closing = closed; // read before draining so nothing submitted before close() is left behind
+            if (queued.get() < flushThreshold && !closing) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            while (!queue.isEmpty()) {
+                List<Entry> batch = new ArrayList<>(Math.min(queued.get(), MAX_BATCH));
+                Entry entry;
+                while (batch.size() < MAX_BATCH && (entry = queue.poll()) != null) {
+                    batch.add(entry);
+                }
+                queued.addAndGet(-batch.size());
+                write(batch);
+            }
+            if (closing) return;
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        if (Files.exists(spoolFile) && !replaySpool()) {
+            spool(batch); // still unreachable: keep the spool in calculation order
+            return;
+        }
+        Progress progress = insertOrDrop(batch);
+        handled.addAndGet(progress.done());
+        if (progress.error() != null) {
+            List<Entry> rest = new ArrayList<>(batch.subList(progress.done(), batch.size()));
+            System.err.println("❌ Could not save " + rest.size() + " calculation(s) to history, spooling them: "
+                    + progress.error().getMessage());
+            spool(rest); // counts them as handled itself
+        }
+    }
+
+    /**
+     * Inserts the entries as one batch. If the server rejects it for any reason other than the connection, the
+     * entries are inserted one at a time instead and those rejected again are logged and dropped. Stops at the
+     * first connection error, leaving the remaining entries to the caller.
+     */
+    private Progress insertOrDrop(List<Entry> entries) {
+        try {
+            insert(entries);
+            written.addAndGet(entries.size());
+            return new Progress(entries.size(), null);
+        } catch (SQLException e) {
+            if (isUnreachable(e)) {
+                return new Progress(0, e);
+            }
+            if (entries.size() == 1) {
+                drop(entries.get(0), e);
+                return new Progress(1, null);
+            }
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            try {
+                insert(entries.subList(i, i + 1));
+                written.incrementAndGet();
+            } catch (SQLException e) {
+                if (isUnreachable(e)) {
+                    return new Progress(i, e);
+                }
+                drop(entries.get(i), e);
+            }
+        }
+        return new Progress(entries.size(), null);
+    }
+
+    private void drop(Entry entry, SQLException e) {
+        rejected.incrementAndGet();
+        System.err.println("❌ Calculation rejected by the database, not saved to history: " + e.getMessage()
+                + " [" + entry.expression() + "]");
+    }
+
+    /**
+     * Connection exceptions (SQLSTATE 08xxx) and the pool's own errors (exhausted, shut down), which carry no
+     * SQLSTATE: worth spooling and trying again later. Anything else will fail the same way next time.
+     */
+    private static boolean isUnreachable(SQLException e) {
+        String state = e.getSQLState();
+        return state == null || state.startsWith("08");
+    }
+
+    private void insert(List<Entry> batch) throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                for (Entry entry : batch) {
+                    pstmt.setString(1, entry.expression());
+                    pstmt.setDouble(2, entry.result());
+                    pstmt.setString(3, entry.mode());
+                    pstmt.setTimestamp(4, new Timestamp(entry.calculatedAt()));
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /** Spool lines: calculatedAt, result, mode, expression (last, so it may contain tabs), tab-separated. */
+    private void spool(List<Entry> batch) {
+        try (BufferedWriter out = Files.newBufferedWriter(spoolFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Entry entry : batch) {
+                out.write(entry.calculatedAt() + "\t" + entry.result() + "\t" + entry.mode() + "\t" + entry.expression());
+                out.newLine();
+            }
+            spooled.addAndGet(batch.size());
+        } catch (IOException e) {
+            System.err.println("❌ Could not spool " + batch.size() + " calculation(s); they are lost: " + e.getMessage());
+        }
+        handled.addAndGet(batch.size());
+    }
+
+    /** Inserts the spooled entries and deletes the spool file; false if the database is still unreachable. */
+    private boolean replaySpool() {
+        if (!Files.exists(spoolFile)) return true;
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(spoolFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                if (fields.length < 4) continue; // torn last line from a crash
+                try {
+                    entries.add(new Entry(fields[3], Double.parseDouble(fields[1]), fields[2], Long.parseLong(fields[0])));
+                } catch (NumberFormatException e) {
+                    // same: skip the damaged line
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Could not read history spool " + spoolFile + ": " + e.getMessage());
+            return false;
+        }
+        int committed = 0; // written or dropped
+        boolean complete = true;
+        while (committed < entries.size()) {
+            List<Entry> chunk = entries.subList(committed, Math.min(entries.size(), committed + MAX_BATCH));
+            Progress progress = insertOrDrop(chunk);
+            committed += progress.done();
+            if (progress.error() != null) {
+                complete = false;
+                break;
+            }
+        }
+        try {
+            Files.delete(spoolFile);
+        } catch (IOException e) {
+            System.err.println("❌ Could not delete history spool " + spoolFile + ": " + e.getMessage());
+            return false;
+        }
+        if (!complete) {
+            // Keep only what wasn't committed, so a later replay doesn't insert rows twice.
+            List<Entry> rest = entries.subList(committed, entries.size());
+            spooled.addAndGet(-rest.size());
+            spool(new ArrayList<>(rest));
+            handled.addAndGet(-rest.size());
+        }
+        return complete;
+    }
+}
@@ -67,5 +67,10 @@ public class MainApplication {
                 }
             }
         } // The scanner is automatically closed here by try-with-resources.
+
+        ConnectionPool.Stats poolStats = ConnectionPool.shutdownShared();
+        if (poolStats != null) {
+            System.out.println("Connection pool: " + poolStats);
+        }
     }
 }
@@ -0,0 +1,286 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Fast path for large SQL import files. The file is memory-mapped and processed as a three-stage pipeline:
+ * 1. the calling thread scans the mapped bytes for safe cut points (statement ends outside quotes and comments)
+ *    without allocating, and cuts the file into ranges of about rangeBytes,
+ * 2. worker threads decode each range, split it into statements with {@link SqlScriptRunner.StatementReader}
+ *    and run the caller's parse function on every statement,
+ * 3. the calling thread hands the parsed statements to the consumer (the JDBC writer) in file order,
+ *    while the workers are already parsing the next ranges.
+ * At most 2 * parallelism ranges are in flight, so memory use doesn't grow with the file size.
+ * The scanner works on raw bytes; that is safe for UTF-8 because quotes, delimiters and comment markers are
+ * ASCII, and no byte of a multi-byte UTF-8 character is.
+ */
+public class MappedSqlLoader {
+    public static final int DEFAULT_RANGE_BYTES = 4 << 20;
+    public static final int DEFAULT_PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final long WINDOW_BYTES = 1L << 30; // a single mapping can't exceed 2 GB
+
+    /** Bytes [start, end) of the file, starting at a statement boundary where the given delimiter is active. */
+    record Range(long start, long end, String delimiter) {}
+
+    @FunctionalInterface
+    public interface ParsedConsumer<T> {
+        void accept(T statement) throws SQLException;
+    }
+
+    /** Convenience for callers that only need the statements themselves. */
+    public static void forEachStatement(Path file, SqlScriptRunner.SqlConsumer consumer) throws IOException, SQLException {
+        load(file, DEFAULT_RANGE_BYTES, DEFAULT_PARALLELISM, sql -> sql, consumer::accept);
+    }
+
+    /**
+     * Loads the file: parse runs on worker threads and must not touch shared state; consumer runs on the calling
+     * thread and sees the parsed statements in the order they appear in the file.
+     */
+    public static <T> void load(Path file, int rangeBytes, int parallelism, Function<String, T> parse,
+                                ParsedConsumer<T> consumer) throws IOException, SQLException {
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "sql-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<List<T>>> inFlight = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            RangeScanner scanner = new RangeScanner(channel, rangeBytes);
+            Range range;
+            while ((range = scanner.next()) != null) {
+                Range toParse = range;
+                inFlight.addLast(workers.submit(() -> parseRange(channel, toParse, parse)));
+                if (inFlight.size() >= 2 * parallelism) {
+                    deliver(inFlight.removeFirst(), consumer);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                deliver(inFlight.removeFirst(), consumer);
+            }
+        } finally {
+            inFlight.forEach(f -> f.cancel(true));
+            workers.shutdownNow();
+        }
+    }
+
+    private static <T> List<T> parseRange(FileChannel channel, Range range, Function<String, T> parse) throws IOException {
+        long length = range.end() - range.start();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Statement at byte " + range.start() + " is larger than 2 GB");
+        }
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, range.start(), length);
+        String text = StandardCharsets.UTF_8.decode(bytes).toString();
+        SqlScriptRunner.StatementReader reader = new SqlScriptRunner.StatementReader(new StringReader(text), range.delimiter());
+        List<T> parsed = new ArrayList<>();
+        String sql;
+        while ((sql = reader.next()) != null) {
+            parsed.add(parse.apply(sql));
+        }
+        return parsed;
+    }
+
+    private static <T> void deliver(Future<List<T>> future, ParsedConsumer<T> consumer) throws IOException, SQLException {
+        List<T> statements;
+        try {
+            statements = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IOException(e.getCause());
+        }
+        for (T statement : statements) {
+            consumer.accept(statement);
+        }
+    }
+
+    /**
+     * Byte-level state machine that finds cut points. It follows the same rules as StatementReader (quotes with
+     * backslash escapes, "-- ", "#" and block comments, DELIMITER lines) but only records where statements end.
+     */
+    static final class RangeScanner {
+        private static final int PLAIN = 0, QUOTED = 1, ESCAPED = 2, DASH = 3, DASH_DASH = 4, LINE_COMMENT = 5,
+                SLASH = 6, BLOCK_COMMENT = 7, BLOCK_STAR = 8;
+        private static final byte[] DELIMITER_WORD = "DELIMITER".getBytes(StandardCharsets.US_ASCII);
+
+        private final FileChannel channel;
+        private final long size;
+        private final int rangeBytes;
+
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position;
+        private long rangeStart;
+
+        private int state = PLAIN;
+        private byte quote;
+        private byte[] delimiter = {';'};
+        private String rangeDelimiter = ";";
+        private int delimiterMatched;
+        // The first bytes of the current statement, to recognise DELIMITER lines; preallocated, never grown.
+        private final byte[] head = new byte[256];
+        private int headLength;
+
+        RangeScanner(FileChannel channel, int rangeBytes) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.rangeBytes = rangeBytes;
+        }
+
+        /** The next range, or null once the whole file has been handed out. */
+        Range next() throws IOException {
+            if (rangeStart >= size) {
+                return null;
+            }
+            while (position < size) {
+                if (position >= windowStart + (window == null ? 0 : window.limit())) {
+                    windowStart = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, size - position));
+                }
+                byte b = window.get((int) (position - windowStart));
+                position++;
+                if (accept(b) && position - rangeStart >= rangeBytes) {
+                    return cut(position);
+                }
+            }
+            return cut(size);
+        }
+
+        private Range cut(long end) {
+            Range range = new Range(rangeStart, end, rangeDelimiter);
+            rangeStart = end;
+            rangeDelimiter = new String(delimiter, StandardCharsets.UTF_8);
+            return range;
+        }
+
+        /** Feeds one byte; true when the file may be cut right after it. */
+        private boolean accept(byte b) {
+            switch (state) {
+                case QUOTED:
+                    if (b == '\\' && quote != '`') state = ESCAPED;
+                    else if (b == quote) state = PLAIN;
+                    return false;
+                case ESCAPED:
+                    state = QUOTED;
+                    return false;
+                case LINE_COMMENT:
+                    if (b == '\n') {
+                        state = PLAIN;
+                        return endOfLine();
+                    }
+                    return false;
+                case BLOCK_COMMENT:
+                    if (b == '*') state = BLOCK_STAR;
+                    return false;
+                case BLOCK_STAR:
+                    state = b == '/' ? PLAIN : b == '*' ? BLOCK_STAR : BLOCK_COMMENT;
+                    return false;
+                case DASH:
+                    if (b == '-') {
+                        state = DASH_DASH;
+                        return false;
+                    }
+                    state = PLAIN;
+                    return plain((byte) '-') | accept(b);
+                case DASH_DASH:
+                    if (b <= ' ') {
+                        state = b == '\n' ? PLAIN : LINE_COMMENT;
+                        return b == '\n' && endOfLine();
+                    }
+                    state = PLAIN;
+                    plain((byte) '-');
+                    return plain((byte) '-') | accept(b);
+                case SLASH:
+                    if (b == '*') {
+                        state = BLOCK_COMMENT;
+                        return false;
+                    }
+                    state = PLAIN;
+                    return plain((byte) '/') | accept(b);
+                default:
+                    if (b == '\'' || b == '"' || b == '`') {
+                        quote = b;
+                        state = QUOTED;
+                        delimiterMatched = 0;
+                        record(b);
+                        return false;
+                    }
+                    if (b == '#') {
+                        state = LINE_COMMENT;
+                        return false;
+                    }
+                    if (b == '-' && delimiter[0] != '-') {
+                        state = DASH;
+                        return false;
+                    }
+                    if (b == '/' && delimiter[0] != '/') {
+                        state = SLASH;
+                        return false;
+                    }
+                    return plain(b);
+            }
+        }
+
+        private boolean plain(byte b) {
+            if (b == delimiter[delimiterMatched] || (delimiterMatched > 0 && b == delimiter[0])) {
+                delimiterMatched = b == delimiter[delimiterMatched] ? delimiterMatched + 1 : 1;
+                if (delimiterMatched == delimiter.length) {
+                    delimiterMatched = 0;
+                    headLength = 0;
+                    return true;
+                }
+            } else {
+                delimiterMatched = 0;
+            }
+            if (b == '\n') {
+                return endOfLine();
+            }
+            record(b);
+            return false;
+        }
+
+        private void record(byte b) {
+            if ((headLength > 0 || b > ' ') && headLength < head.length) {
+                head[headLength++] = b;
+            }
+        }
+
+        /** At a line end outside quotes: a DELIMITER line switches the delimiter and is a cut point itself. */
+        private boolean endOfLine() {
+            if (headLength <= DELIMITER_WORD.length || headLength == head.length) {
+                return false;
+            }
+            for (int i = 0; i < DELIMITER_WORD.length; i++) {
+                if ((head[i] & 0xDF) != DELIMITER_WORD[i]) return false;
+            }
+            if (head[DELIMITER_WORD.length] > ' ') return false;
+            int from = DELIMITER_WORD.length;
+            while (from < headLength && head[from] <= ' ') from++;
+            int to = headLength;
+            while (to > from && head[to - 1] <= ' ') to--;
+            if (to == from) return false;
+            byte[] newDelimiter = new byte[to - from]; // only on DELIMITER lines, which are rare
+            System.arraycopy(head, from, newDelimiter, 0, newDelimiter.length);
+            delimiter = newDelimiter;
+            delimiterMatched = 0;
+            headLength = 0;
+            return true;
+        }
+    }
+}
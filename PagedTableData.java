@@ -0,0 +1,533 @@
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * A virtualized view of one table for FxDb's TableView. Instead of materializing the whole table, rows are
+ * fetched in fixed-size pages as the TableView asks for them:
+ * - pages are addressed by primary-key range (keyset pagination), so page 1000 costs the same as page 1;
+ *   tables without a single-column primary key, or views sorted by another column, fall back to LIMIT/OFFSET;
+ * - the view's RowQuery (search and sort) is evaluated by the server for every page, so only matching rows
+ *   are read; close() cancels page queries still running for a view that was replaced;
+ * - the next page is prefetched in the background when the user scrolls near the end of what is loaded;
+ * - at most maxResidentPages pages stay in memory (LRU), evicted pages are re-read when scrolled back into view;
+ * - each page is a ColumnarTable, so a resident page costs a few primitive arrays rather than a String per cell;
+ * - removeRows() takes rows deleted by the application out of the view without re-reading anything. Pages
+ *   therefore hold a varying number of rows; an evicted page that comes back with more or fewer rows than
+ *   it had (other clients changed the range) grows or shrinks in place.
+ * Like any ObservableList backing a control, it must only be used from the JavaFX Application Thread.
+ */
+public class PagedTableData extends ObservableListBase<List<String>> {
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int DEFAULT_MAX_RESIDENT_PAGES = 40;
+
+    private final DatabaseHelper dbHelper;
+    private final String tableName;
+    private final DatabaseHelper.RowQuery query;
+    private final QueryCancellation cancellation;
+    private final List<String> headers;
+    private final String keyColumn; // null => OFFSET paging
+    private final int keyIndex;
+    private final int primaryKeyIndex; // the primary key column, whatever the order; -1 without one
+    private final boolean numericKey;
+    private final int pageSize;
+    private final int maxResidentPages;
+    private final Executor loader;
+    private final Consumer<Throwable> errorHandler;
+    private final List<String> placeholderRow;
+
+    private static final class Resolution {
+        final BitSet indexes;
+        final int column;
+        final List<String> values = new ArrayList<>();
+        final Consumer<List<String>> done;
+        int page;
+
+        Resolution(BitSet indexes, int column, Consumer<List<String>> done) {
+            this.indexes = indexes;
+            this.column = column;
+            this.done = done;
+        }
+    }
+
+    /** A page in memory; live lists the ColumnarTable rows still shown, or is null when all of them are. */
+    private record Resident(ColumnarTable rows, int[] live) {
+        int size() {
+            return live == null ? rows.getRowCount() : live.length;
+        }
+
+        int physical(int offset) {
+            return live == null ? offset : live[offset];
+        }
+    }
+
+    // Access-ordered, so iteration starts at the least recently used page.
+    private final LinkedHashMap<Integer, Resident> residentPages = new LinkedHashMap<>(16, 0.75f, true);
+    // Last primary key of every page discovered so far; page i covers (pageLastKeys[i-1], pageLastKeys[i]].
+    private final List<String> pageLastKeys = new ArrayList<>();
+    // Rows each page contributes to the list, and the index of each page's first row (rebuilt when counts change).
+    private final List<Integer> pageCounts = new ArrayList<>();
+    private int[] pageStarts = new int[0];
+    private final Set<Integer> pagesLoading = new HashSet<>();
+    // Rows removed from the view (column index -> values); filtered out of pages read later as well.
+    private final Map<Integer, Set<String>> removedRows = new HashMap<>();
+    private int knownRows;
+    private Resolution resolution; // a resolveValues() call waiting for pages
+    private boolean exhausted;
+    private boolean closed;
+
+    private PagedTableData(DatabaseHelper dbHelper, String tableName, DatabaseHelper.RowQuery query,
+                           QueryCancellation cancellation, List<String> headers, String keyColumn, boolean numericKey,
+                           int pageSize, int maxResidentPages, Executor loader, Consumer<Throwable> errorHandler) {
+        this.dbHelper = dbHelper;
+        this.tableName = tableName;
+        this.query = query;
+        this.cancellation = cancellation;
+        this.headers = List.copyOf(headers);
+        // Keyset paging walks the key upwards, so it only fits views ordered by the key ascending.
+        boolean keyOrdered = query.sortColumn() == null || (query.sortColumn().equalsIgnoreCase(keyColumn) && !query.descending());
+        int index = -1;
+        for (int i = 0; keyColumn != null && i < headers.size(); i++) {
+            if (headers.get(i).equalsIgnoreCase(keyColumn)) index = i;
+        }
+        this.primaryKeyIndex = index;
+        this.numericKey = numericKey;
+        this.keyColumn = index >= 0 && keyOrdered ? headers.get(index) : null;
+        this.keyIndex = keyOrdered ? index : -1;
+        this.pageSize = pageSize;
+        this.maxResidentPages = Math.max(2, maxResidentPages);
+        this.loader = loader;
+        this.errorHandler = errorHandler;
+        this.placeholderRow = Collections.nCopies(headers.size(), "…");
+    }
+
+    /**
+     * Reads the table's metadata and the first page of rows matching the query. Meant to be called from a
+     * background thread; the returned list is then handed to the TableView on the FX thread. Cancelling the
+     * cancellation (or closing the list) stops its queries.
+     */
+    public static PagedTableData open(DatabaseHelper dbHelper, String tableName, DatabaseHelper.RowQuery query,
+                                      QueryCancellation cancellation, int pageSize, int maxResidentPages,
+                                      Executor loader, Consumer<Throwable> errorHandler) throws SQLException {
+        List<String> headers = dbHelper.getColumnNames(tableName);
+        String keyColumn = dbHelper.getPrimaryKeyColumn(tableName);
+        SchemaCache.Column key = keyColumn == null ? null : dbHelper.getTableSchema(tableName).column(keyColumn);
+        boolean numericKey = key != null && isNumeric(key.jdbcType());
+        PagedTableData data = new PagedTableData(dbHelper, tableName, query, cancellation, headers, keyColumn, numericKey,
+                pageSize, maxResidentPages, loader, errorHandler);
+        data.acceptAppendedPage(data.fetchPage(0, pageSize, null, null));
+        return data;
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    /** The table's primary key column, also when the view isn't ordered by it; null without one. */
+    public String getPrimaryKeyColumn() {
+        return primaryKeyIndex >= 0 ? headers.get(primaryKeyIndex) : null;
+    }
+
+    public DatabaseHelper.RowQuery getQuery() {
+        return query;
+    }
+
+    /** True once the last page of the table has been seen, i.e. size() is the table's full row count. */
+    public boolean isFullyLoaded() {
+        return exhausted;
+    }
+
+    /** Stops applying (and running) any in-flight page loads; called when the view switches to another table or query. */
+    public void close() {
+        closed = true;
+        cancellation.cancel();
+        residentPages.clear();
+    }
+
+    /**
+     * Takes the rows whose value in column is one of values out of the view, e.g. after they were deleted.
+     * Rows of pages not in memory are dropped when those pages are read. Returns how many rows were removed now.
+     */
+    public int removeRows(String column, Collection<String> values) {
+        int columnIndex = headers.indexOf(column);
+        if (columnIndex < 0 || values.isEmpty()) {
+            return 0;
+        }
+        Set<String> removed = removedRows.computeIfAbsent(columnIndex, c -> new HashSet<>());
+        removed.addAll(values);
+        List<Integer> pages = new ArrayList<>(residentPages.keySet());
+        Collections.sort(pages);
+        // Collected first and fired from the end, so each index is still valid when its removal is reported.
+        List<int[]> removals = new ArrayList<>(); // {list index, page, physical row}
+        for (int page : pages) {
+            Resident resident = residentPages.get(page);
+            Resident filtered = filter(resident.rows(), resident.live());
+            if (filtered.size() == resident.size()) continue;
+            int start = pageStart(page);
+            for (int offset = 0; offset < resident.size(); offset++) {
+                int physical = resident.physical(offset);
+                if (isRemoved(resident.rows(), physical)) {
+                    removals.add(new int[]{start + offset, page, physical});
+                }
+            }
+            residentPages.put(page, filtered);
+            pageCounts.set(page, filtered.size());
+        }
+        if (removals.isEmpty()) {
+            return 0;
+        }
+        knownRows -= removals.size();
+        rebuildPageStarts();
+        beginChange();
+        for (int i = removals.size() - 1; i >= 0; i--) {
+            int[] removal = removals.get(i);
+            nextRemove(removal[0], residentPageRows(removal[1]).row(removal[2]));
+        }
+        endChange();
+        return removals.size();
+    }
+
+    /**
+     * Copies freshly read rows (matched by primary key) over the rows in memory, e.g. after an UPDATE. Rows of
+     * pages not in memory need nothing: they are read anew when scrolled to. A row whose new values no longer
+     * match the view's search or sort stays where it is until the view is reloaded. Returns the rows updated.
+     */
+    public int updateRows(ColumnarTable fresh) {
+        if (primaryKeyIndex < 0 || fresh.getRowCount() == 0) {
+            return 0;
+        }
+        int freshKey = fresh.getHeaders().indexOf(headers.get(primaryKeyIndex));
+        if (freshKey < 0 || fresh.getColumnCount() != headers.size()) {
+            return 0;
+        }
+        Map<String, Integer> freshRows = new HashMap<>();
+        for (int row = 0; row < fresh.getRowCount(); row++) {
+            freshRows.put(fresh.getValue(row, freshKey), row);
+        }
+        List<Integer> pages = new ArrayList<>(residentPages.keySet());
+        Collections.sort(pages);
+        int updated = 0;
+        beginChange();
+        for (int page : pages) {
+            Resident resident = residentPages.get(page);
+            int start = pageStart(page);
+            for (int offset = 0; offset < resident.size(); offset++) {
+                int physical = resident.physical(offset);
+                Integer source = freshRows.get(resident.rows().getValue(physical, primaryKeyIndex));
+                if (source == null) continue;
+                List<String> previous = new ArrayList<>(resident.rows().row(physical));
+                for (int column = 0; column < headers.size(); column++) {
+                    resident.rows().setValue(physical, column, fresh.getValue(source, column));
+                }
+                nextSet(start + offset, previous);
+                updated++;
+            }
+        }
+        endChange();
+        return updated;
+    }
+
+    /**
+     * Makes rows inserted under the given primary keys show up: the page whose key range now holds a key is
+     * re-read, or, for a key past the last one loaded, the rows after it are read as a new page. Only possible
+     * when the view pages by key; returns false otherwise, and the caller has to reload the view.
+     */
+    public boolean rowsInserted(Collection<String> keys) {
+        if (keyColumn == null) {
+            return false;
+        }
+        Set<String> removed = removedRows.get(keyIndex);
+        if (removed != null) {
+            removed.removeAll(keys); // a deleted key can be inserted again
+        }
+        for (String key : keys) {
+            int page = pageCovering(key);
+            if (page >= 0) {
+                if (residentPages.containsKey(page)) requestPage(page);
+            } else if (exhausted) {
+                exhausted = false;
+                requestPage(pageCounts.size());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects one column's values (e.g. the key) of the rows at the given indexes and hands them to done.
+     * Pages not in memory are read one at a time as needed, so this also works for a selection of every row
+     * of a large table; done is then called later, and not at all if reading a page fails.
+     */
+    public void resolveValues(BitSet indexes, int column, Consumer<List<String>> done) {
+        resolution = new Resolution(indexes, column, done);
+        continueResolution();
+    }
+
+    private void continueResolution() {
+        Resolution r = resolution;
+        if (r == null || closed) {
+            return;
+        }
+        while (r.page < pageCounts.size()) {
+            int start = pageStart(r.page);
+            int next = r.indexes.nextSetBit(start);
+            if (next < 0 || next >= knownRows) {
+                break;
+            }
+            int end = start + pageCounts.get(r.page);
+            if (next >= end) {
+                r.page = pageOf(next);
+                continue;
+            }
+            Resident resident = residentPages.get(r.page);
+            if (resident == null) {
+                requestPage(r.page); // continued when it arrives
+                return;
+            }
+            for (int i = next; i >= 0 && i < end; i = r.indexes.nextSetBit(i + 1)) {
+                r.values.add(resident.rows().getValue(resident.physical(i - start), r.column));
+            }
+            r.page++;
+        }
+        resolution = null;
+        r.done.accept(r.values);
+    }
+
+    @Override
+    public int size() {
+        return knownRows;
+    }
+
+    @Override
+    public List<String> get(int index) {
+        if (index < 0 || index >= knownRows) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + knownRows);
+        }
+        int page = pageOf(index);
+        if (!exhausted && page >= pageCounts.size() - 1 && index >= knownRows - pageSize / 2) {
+            requestPage(pageCounts.size()); // prefetch the next page before the user reaches the end
+        }
+        Resident resident = residentPages.get(page);
+        if (resident == null) {
+            requestPage(page);
+            return placeholderRow;
+        }
+        int offset = index - pageStart(page);
+        return offset < resident.size() ? resident.rows().row(resident.physical(offset)) : placeholderRow;
+    }
+
+    /** Reads the parameters on the FX thread and fetches on the loader; page == pageCounts.size() appends. */
+    private void requestPage(int page) {
+        if (closed || !pagesLoading.add(page)) {
+            return;
+        }
+        boolean append = page >= pageCounts.size();
+        String afterKey = keyColumn == null || page == 0 ? null : pageLastKeys.get(page - 1);
+        String throughKey = keyColumn == null || append ? null : pageLastKeys.get(page);
+        // With OFFSET paging a page starts after the rows before it as the view shows them (rows removed from
+        // the view were deleted from the table too) and holds no more rows than it does now.
+        long offset = append ? knownRows : pageStart(page);
+        int limit = append || keyColumn != null ? pageSize : pageCounts.get(page);
+        loader.execute(() -> {
+            try {
+                ColumnarTable rows = fetchPage(offset, limit, afterKey, throughKey);
+                Platform.runLater(() -> {
+                    pagesLoading.remove(page);
+                    if (closed) return;
+                    if (append) {
+                        appendPage(rows);
+                    } else {
+                        replacePage(page, rows);
+                    }
+                    continueResolution();
+                });
+            } catch (SQLException | RuntimeException e) {
+                Platform.runLater(() -> {
+                    pagesLoading.remove(page);
+                    resolution = null;
+                    if (!closed) errorHandler.accept(e);
+                });
+            }
+        });
+    }
+
+    /**
+     * A keyset page (afterKey, throughKey], or with OFFSET paging up to limit rows from offset on. A page that
+     * is re-read gets its whole key range with no LIMIT: inserts may have put more than pageSize rows in it,
+     * and no other page covers the rows past the first pageSize.
+     */
+    private ColumnarTable fetchPage(long offset, int limit, String afterKey, String throughKey) throws SQLException {
+        if (keyColumn == null) {
+            return dbHelper.getTablePage(tableName, null, null, null, offset, limit, query, cancellation);
+        }
+        return dbHelper.getTablePage(tableName, keyColumn, afterKey, throughKey, 0, throughKey == null ? pageSize : -1,
+                query, cancellation);
+    }
+
+    private void appendPage(ColumnarTable rows) {
+        int from = knownRows;
+        acceptAppendedPage(rows);
+        if (knownRows > from) {
+            beginChange();
+            nextAdd(from, knownRows);
+            endChange();
+        }
+        evictIfNeeded();
+    }
+
+    private void acceptAppendedPage(ColumnarTable rows) {
+        if (rows.getRowCount() < pageSize) {
+            exhausted = true;
+        }
+        if (rows.getRowCount() == 0) {
+            return;
+        }
+        int page = pageCounts.size();
+        Resident resident = filter(rows, null);
+        pageLastKeys.add(keyColumn == null ? null : rows.getValue(rows.getRowCount() - 1, keyIndex));
+        pageCounts.add(resident.size());
+        residentPages.put(page, resident);
+        knownRows += resident.size();
+        rebuildPageStarts();
+    }
+
+    /**
+     * Puts a re-read page back. If the range now holds a different number of rows (inserted or deleted since
+     * it was first read), the list grows or shrinks at that page, so later pages keep their rows.
+     */
+    private void replacePage(int page, ColumnarTable rows) {
+        Resident resident = filter(rows, null);
+        residentPages.put(page, resident);
+        int from = pageStart(page);
+        int oldCount = pageCounts.get(page);
+        int newCount = resident.size();
+        int common = Math.min(oldCount, newCount);
+        pageCounts.set(page, newCount);
+        knownRows += newCount - oldCount;
+        rebuildPageStarts();
+        beginChange();
+        if (common > 0) {
+            nextReplace(from, from + common, Collections.nCopies(common, placeholderRow));
+        }
+        if (newCount > oldCount) {
+            nextAdd(from + common, from + newCount);
+        } else if (newCount < oldCount) {
+            nextRemove(from + common, Collections.nCopies(oldCount - newCount, placeholderRow));
+        }
+        endChange();
+        evictIfNeeded();
+    }
+
+    /** The rows of the page minus those removed from the view; live narrows an already filtered page further. */
+    private Resident filter(ColumnarTable rows, int[] live) {
+        int count = live == null ? rows.getRowCount() : live.length;
+        if (removedRows.isEmpty()) {
+            return new Resident(rows, live);
+        }
+        int[] kept = new int[count];
+        int keptCount = 0;
+        for (int i = 0; i < count; i++) {
+            int physical = live == null ? i : live[i];
+            if (!isRemoved(rows, physical)) kept[keptCount++] = physical;
+        }
+        if (keptCount == count) {
+            return new Resident(rows, live);
+        }
+        return new Resident(rows, Arrays.copyOf(kept, keptCount));
+    }
+
+    /** The first page whose key range (pageLastKeys[i-1], pageLastKeys[i]] holds key, or -1 if it is past them all. */
+    private int pageCovering(String key) {
+        int low = 0, high = pageLastKeys.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKeys(key, pageLastKeys.get(mid)) <= 0) high = mid; else low = mid + 1;
+        }
+        return low < pageLastKeys.size() ? low : -1;
+    }
+
+    /** Orders keys the way the server does: numerically for numeric keys, otherwise case-insensitively. */
+    private int compareKeys(String a, String b) {
+        if (numericKey) {
+            try {
+                return new BigDecimal(a).compareTo(new BigDecimal(b));
+            } catch (NumberFormatException e) {
+                // not a number after all; fall back to text order
+            }
+        }
+        return a.compareToIgnoreCase(b);
+    }
+
+    private static boolean isNumeric(int jdbcType) {
+        switch (jdbcType) {
+            case Types.TINYINT: case Types.SMALLINT: case Types.INTEGER: case Types.BIGINT:
+            case Types.DECIMAL: case Types.NUMERIC: case Types.FLOAT: case Types.REAL: case Types.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean isRemoved(ColumnarTable rows, int physical) {
+        for (Map.Entry<Integer, Set<String>> entry : removedRows.entrySet()) {
+            if (entry.getValue().contains(rows.getValue(physical, entry.getKey()))) return true;
+        }
+        return false;
+    }
+
+    private ColumnarTable residentPageRows(int page) {
+        return residentPages.get(page).rows();
+    }
+
+    private int pageStart(int page) {
+        return pageStarts[page];
+    }
+
+    /** The page holding the row at index: the last page starting at or before it (empty pages never qualify). */
+    private int pageOf(int index) {
+        int low = 0, high = pageStarts.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (pageStarts[mid] <= index) low = mid; else high = mid - 1;
+        }
+        return low;
+    }
+
+    private void rebuildPageStarts() {
+        int[] starts = new int[pageCounts.size()];
+        int start = 0;
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = start;
+            start += pageCounts.get(i);
+        }
+        pageStarts = starts;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Integer, Resident>> it = residentPages.entrySet().iterator();
+        while (residentPages.size() > maxResidentPages && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets the FX thread abort queries that are already running on a background thread. DatabaseHelper registers
+ * each statement it executes for a caller that passed one of these; cancel() then calls Statement.cancel() on
+ * whatever is still running (Connector/J sends KILL QUERY on a separate connection) and makes later
+ * registrations fail at once, so a superseded page load or search stops using the server.
+ * With a timeout, every registered statement also gets setQueryTimeout(), so a runaway query ends by itself.
+ */
+public final class QueryCancellation {
+    private final Set<Statement> running = ConcurrentHashMap.newKeySet();
+    private final int timeoutSeconds;
+    private volatile boolean cancelled;
+
+    public QueryCancellation() {
+        this(0);
+    }
+
+    /** @param timeoutSeconds limit for each statement; 0 means none */
+    public QueryCancellation(int timeoutSeconds) {
+        this.timeoutSeconds = Math.max(0, timeoutSeconds);
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Statement stmt : running) {
+            try {
+                stmt.cancel();
+            } catch (SQLException e) {
+                // already finished or closed; nothing left to stop
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Called before executing; throws if the query was cancelled before it even started. */
+    void register(Statement stmt) throws SQLException {
+        if (timeoutSeconds > 0) {
+            stmt.setQueryTimeout(timeoutSeconds);
+        }
+        running.add(stmt);
+        if (cancelled) {
+            running.remove(stmt);
+            throw new SQLException("Query was cancelled.", "70100");
+        }
+    }
+
+    void unregister(Statement stmt) {
+        running.remove(stmt);
+    }
+}
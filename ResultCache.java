@@ -0,0 +1,132 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers what Cons computed for recent expressions: the result and the numbers split into even and odd.
+ * Entries are keyed by CompiledExpression.normalize(), so "2 (3)" finds what "2*(3)" left behind, and the
+ * least recently used entry is dropped once maxEntries are held. Only expressions that evaluated successfully
+ * are stored. Hit, miss and eviction counts are kept for the session summary.
+ */
+public class ResultCache {
+
+    /** A cached evaluation. The arrays are never handed out, so a Result can be shared freely. */
+    public static final class Result {
+        private final double value;
+        private final double[] numbers;
+
+        private Result(double value, double[] numbers) {
+            this.value = value;
+            this.numbers = numbers;
+        }
+
+        public double value() {
+            return value;
+        }
+
+        public int numberCount() {
+            return numbers.length;
+        }
+
+        /** The expression's numbers in order of appearance. */
+        public double number(int index) {
+            return numbers[index];
+        }
+
+        /** Appends the numbers to even and odd by the calculator's parity rule, in order of appearance. */
+        public void partition(DoubleList even, DoubleList odd) {
+            for (double number : numbers) {
+                if (CompiledExpression.isEven(number)) even.add(number); else odd.add(number);
+            }
+        }
+    }
+
+    private final Map<String, Result> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ResultCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                if (size() <= maxEntries) return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /** True if the expression has been evaluated before; doesn't count as a hit or miss. */
+    public boolean contains(String expression) {
+        String key = CompiledExpression.normalize(expression);
+        synchronized (entries) {
+            return entries.containsKey(key);
+        }
+    }
+
+    /**
+     * The cached evaluation of the expression, evaluating and storing it on a miss.
+     * Errors (bad syntax, division by zero) propagate and are not cached.
+     */
+    public Result evaluate(String expression) {
+        String key = CompiledExpression.normalize(expression);
+        synchronized (entries) {
+            Result cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        Result result = compute(key);
+        synchronized (entries) {
+            entries.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Fills the cache from earlier expressions (e.g. the latest calculation_history rows), oldest first so the
+     * newest end up most recently used. Expressions that no longer validate or evaluate are skipped.
+     * Returns how many were stored; warming doesn't count towards hits or misses.
+     */
+    public int warm(List<String> expressionsOldestFirst) {
+        int stored = 0;
+        for (String expression : expressionsOldestFirst) {
+            if (!ExpressionValidator.isValid(expression)) continue;
+            String key = CompiledExpression.normalize(expression);
+            try {
+                Result result = compute(key);
+                synchronized (entries) {
+                    entries.put(key, result);
+                }
+                stored++;
+            } catch (RuntimeException e) {
+                // e.g. a division by zero that was saved before results were checked; just don't cache it
+            }
+        }
+        return stored;
+    }
+
+    public String summary() {
+        long h = hits.get(), m = misses.get();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return String.format("%d hits, %d misses (%.1f%% hit rate), %d evictions, %d entries",
+                h, m, h + m == 0 ? 0 : h * 100.0 / (h + m), evictions.get(), size);
+    }
+
+    private static Result compute(String normalized) {
+        CompiledExpression compiled = CompiledExpression.parse(normalized); // this cache already keeps the result
+        double value = compiled.evaluate();
+        double[] numbers = new double[compiled.numberCount()];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = compiled.number(i);
+        }
+        return new Result(value, numbers);
+    }
+}
@@ -0,0 +1,127 @@
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.BitSet;
+
+/**
+ * The rows ticked in FxDb's "Select" column, as one bit per row index of the grid's item list:
+ * - a million-row view costs 125 KB however many rows are ticked, and no object per row;
+ * - selectAll(), invert() and clear() work a 64-bit word at a time;
+ * - attach() follows the list's changes, so bits move with their rows when rows above them are added or
+ *   removed (removed rows drop out of the selection), and a row replaced in place keeps its tick.
+ * Used only from the JavaFX Application Thread.
+ */
+public class RowSelection {
+
+    private final BitSet selected = new BitSet();
+    private final SimpleIntegerProperty count = new SimpleIntegerProperty(0);
+    private final ListChangeListener<Object> listener = this::onChanged;
+    private ObservableList<?> rows;
+
+    /** Starts tracking a new item list with nothing selected. */
+    public void attach(ObservableList<?> rows) {
+        if (this.rows != null) {
+            this.rows.removeListener(listener);
+        }
+        this.rows = rows;
+        if (rows != null) {
+            rows.addListener(listener);
+        }
+        clear();
+    }
+
+    public boolean isSelected(int index) {
+        return index >= 0 && selected.get(index);
+    }
+
+    public void set(int index, boolean value) {
+        if (rows == null || index < 0 || index >= rows.size()) {
+            return;
+        }
+        selected.set(index, value);
+        updateCount();
+    }
+
+    public void selectAll() {
+        if (rows != null) {
+            selected.set(0, rows.size());
+            updateCount();
+        }
+    }
+
+    public void invert() {
+        if (rows != null) {
+            selected.flip(0, rows.size());
+            updateCount();
+        }
+    }
+
+    public void clear() {
+        selected.clear();
+        updateCount();
+    }
+
+    /** A copy of the selected indexes. */
+    public BitSet indexes() {
+        return (BitSet) selected.clone();
+    }
+
+    public int getCount() {
+        return count.get();
+    }
+
+    public ReadOnlyIntegerProperty countProperty() {
+        return count;
+    }
+
+    private void onChanged(ListChangeListener.Change<?> change) {
+        while (change.next()) {
+            int from = change.getFrom();
+            if (change.wasPermutated()) {
+                BitSet before = selected.get(from, change.getTo());
+                selected.clear(from, change.getTo());
+                for (int i = before.nextSetBit(0); i >= 0; i = before.nextSetBit(i + 1)) {
+                    selected.set(change.getPermutation(from + i));
+                }
+            } else if (change.wasReplaced() && change.getRemovedSize() == change.getAddedSize()) {
+                // rows updated in place stay selected
+            } else {
+                if (change.wasRemoved()) {
+                    shift(from + change.getRemovedSize(), -change.getRemovedSize());
+                }
+                if (change.wasAdded()) {
+                    shift(from, change.getAddedSize());
+                }
+            }
+        }
+        updateCount();
+    }
+
+    /** Moves every bit at or after from by delta places; a negative delta drops the bits it moves over. */
+    private void shift(int from, int delta) {
+        int length = selected.length();
+        if (from >= length || delta == 0) {
+            if (delta < 0) selected.clear(from + delta, from);
+            return;
+        }
+        long[] tail = selected.get(from, length).toLongArray();
+        selected.clear(Math.min(from, from + delta), length);
+        int target = from + delta;
+        int wordShift = target >>> 6;
+        int bitShift = target & 63;
+        long[] words = new long[wordShift + tail.length + 1];
+        for (int i = 0; i < tail.length; i++) {
+            words[wordShift + i] |= tail[i] << bitShift;
+            if (bitShift != 0) {
+                words[wordShift + i + 1] |= tail[i] >>> (64 - bitShift);
+            }
+        }
+        selected.or(BitSet.valueOf(words));
+    }
+
+    private void updateCount() {
+        count.set(selected.cardinality());
+    }
+}
@@ -0,0 +1,143 @@
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory copy of the schema DatabaseHelper works against: the table list and, per table, its columns (with
+ * JDBC types) and primary key. DatabaseHelper fills it from DatabaseMetaData, in bulk on refresh or one table
+ * at a time on a miss, and invalidates it whenever it runs DDL itself. Changes made by other clients are only
+ * seen after a refresh.
+ * Safe to use from the FX thread and background tasks at once. Every invalidation bumps a generation counter,
+ * and loads started before an invalidation are not stored, so a slow load can't bring back a stale schema.
+ */
+public class SchemaCache {
+
+    public record Column(String name, int jdbcType, String typeName, int size, boolean nullable, boolean autoIncrement) {}
+
+    public record TableSchema(String tableName, List<Column> columns, List<String> primaryKey) {
+        public List<String> columnNames() {
+            List<String> names = new ArrayList<>(columns.size());
+            for (Column column : columns) {
+                names.add(column.name());
+            }
+            return names;
+        }
+
+        /** The primary key column, or null when the key is missing or composite. */
+        public String keyColumn() {
+            return primaryKey.size() == 1 ? primaryKey.get(0) : null;
+        }
+
+        public Column column(String name) {
+            for (Column column : columns) {
+                if (column.name().equalsIgnoreCase(name)) return column;
+            }
+            return null;
+        }
+    }
+
+    // The keyword at the start of the text or of any statement after a ';', past leading comments.
+    private static final Pattern DDL = Pattern.compile(
+            "(^|;)\\s*(/\\*.*?\\*/\\s*|(--|#)[^\\n]*\\n\\s*)*(ALTER|CREATE|DROP|RENAME|TRUNCATE)\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private volatile List<String> tableNames;
+    private final Map<String, TableSchema> tables = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /** Cached table list, or null if it has to be loaded. */
+    public List<String> getTableNames() {
+        return tableNames;
+    }
+
+    /** Cached schema of one table, or null if it has to be loaded. */
+    public TableSchema getTable(String tableName) {
+        return tables.get(tableName);
+    }
+
+    /** Take this before reading from the database and pass it to the store methods. */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void storeTableNames(long loadedAt, List<String> names) {
+        synchronized (this) {
+            if (generation.get() == loadedAt) tableNames = List.copyOf(names);
+        }
+    }
+
+    public void storeTable(long loadedAt, TableSchema schema) {
+        synchronized (this) {
+            if (generation.get() == loadedAt) tables.put(schema.tableName(), schema);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        tableNames = null;
+        tables.clear();
+    }
+
+    /**
+     * Called after the application ran SQL (possibly several statements): if any statement in it is DDL
+     * (ALTER, CREATE, DROP, RENAME, TRUNCATE), everything is dropped, since a statement can name several
+     * tables, a schema-qualified one or one renamed on the way. DML leaves the cache alone.
+     */
+    public void invalidateFor(String sql) {
+        if (DDL.matcher(sql).find()) {
+            invalidateAll();
+        }
+    }
+
+    /** Reads the names of all base tables of the connection's catalog. */
+    public static List<String> readTableNames(Connection conn) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                names.add(rs.getString("TABLE_NAME"));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Reads the schema of the tables matching the pattern ("%" for all) with one getColumns call, plus one
+     * getPrimaryKeys call per table.
+     */
+    public static Map<String, TableSchema> readTables(Connection conn, String tablePattern) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        String catalog = conn.getCatalog();
+        Map<String, List<Column>> columns = new LinkedHashMap<>();
+        try (ResultSet rs = meta.getColumns(catalog, null, tablePattern, "%")) {
+            while (rs.next()) {
+                columns.computeIfAbsent(rs.getString("TABLE_NAME"), t -> new ArrayList<>()).add(new Column(
+                        rs.getString("COLUMN_NAME"),
+                        rs.getInt("DATA_TYPE"),
+                        rs.getString("TYPE_NAME"),
+                        rs.getInt("COLUMN_SIZE"),
+                        rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls,
+                        "YES".equalsIgnoreCase(rs.getString("IS_AUTOINCREMENT"))));
+            }
+        }
+        Map<String, TableSchema> schemas = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Column>> entry : columns.entrySet()) {
+            // getColumns is ordered by ORDINAL_POSITION within a table, as SELECT * returns them
+            List<String> primaryKey = new ArrayList<>();
+            try (ResultSet rs = meta.getPrimaryKeys(catalog, null, entry.getKey())) {
+                while (rs.next()) {
+                    primaryKey.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+            schemas.put(entry.getKey(), new TableSchema(entry.getKey(), List.copyOf(entry.getValue()), List.copyOf(primaryKey)));
+        }
+        return schemas;
+    }
+}
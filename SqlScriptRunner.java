@@ -0,0 +1,390 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Runs SQL scripts (create.txt, files picked in FxDb, mysqldump output) statement by statement while reading them,
+ * so a script of any size is executed in constant memory: only the current statement and one batch are held.
+ * - Statements are split by {@link StatementReader}, which understands quotes, comments and DELIMITER.
+ * - Everything runs on the one connection the caller passes in; statements that don't return rows are sent
+ *   batchSize at a time with Statement.addBatch. With stopOnError they are run one at a time instead, since
+ *   the driver carries on with the rest of a batch after a failing statement.
+ * - Progress is reported at most once per second, errors as they happen.
+ */
+public class SqlScriptRunner {
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+
+    public record Result(long executed, long failed, long elapsedNanos) {
+        public double statementsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (executed + failed) * 1e9 / elapsedNanos;
+        }
+    }
+
+    @FunctionalInterface
+    public interface SqlConsumer {
+        void accept(String sql) throws SQLException;
+    }
+
+    private final Connection connection;
+    private final int batchSize;
+    private final boolean stopOnError;
+    private final Consumer<String> log;
+
+    private final List<String> batch = new ArrayList<>();
+    private long executed;
+    private long failed;
+    private long statementNumber;
+    private long batchFirstNumber;
+    private long lastProgressAt;
+
+    /**
+     * @param stopOnError true to run statements one at a time and abort the script at the first failing one
+     *                    (no later statement runs; the exception names it), false to log the failure and carry on
+     *                    with the next statement
+     */
+    public SqlScriptRunner(Connection connection, int batchSize, boolean stopOnError, Consumer<String> log) {
+        this.connection = connection;
+        this.batchSize = Math.max(1, batchSize);
+        this.stopOnError = stopOnError;
+        this.log = log;
+    }
+
+    public Result run(Reader reader) throws IOException, SQLException {
+        return run(reader, sql -> {});
+    }
+
+    /** Runs every statement of the script; onSuccess sees each statement once it has executed without error. */
+    public Result run(Reader reader, Consumer<String> onSuccess) throws IOException, SQLException {
+        return run(consumer -> forEachStatement(reader, consumer), onSuccess);
+    }
+
+    /** Runs a script file, split into statements by {@link MappedSqlLoader} (memory-mapped, parsed ahead in parallel). */
+    public Result run(Path file, Consumer<String> onSuccess) throws IOException, SQLException {
+        return run(consumer -> MappedSqlLoader.forEachStatement(file, consumer), onSuccess);
+    }
+
+    @FunctionalInterface
+    private interface StatementSource {
+        void forEach(SqlConsumer consumer) throws IOException, SQLException;
+    }
+
+    private Result run(StatementSource statements, Consumer<String> onSuccess) throws IOException, SQLException {
+        long startedAt = System.nanoTime();
+        lastProgressAt = startedAt;
+        executed = 0;
+        failed = 0;
+        statementNumber = 0;
+        try (Statement stmt = connection.createStatement()) {
+            statements.forEach(sql -> {
+                statementNumber++;
+                if (stopOnError || returnsRows(sql)) {
+                    executeBatch(stmt, onSuccess); // keep the script's order
+                    executeSingle(stmt, sql, onSuccess);
+                } else {
+                    if (batch.isEmpty()) batchFirstNumber = statementNumber;
+                    stmt.addBatch(sql);
+                    batch.add(sql);
+                    if (batch.size() >= batchSize) {
+                        executeBatch(stmt, onSuccess);
+                    }
+                }
+                reportProgress(startedAt);
+            });
+            executeBatch(stmt, onSuccess);
+        } finally {
+            batch.clear();
+        }
+        return new Result(executed, failed, System.nanoTime() - startedAt);
+    }
+
+    private void executeSingle(Statement stmt, String sql, Consumer<String> onSuccess) throws SQLException {
+        try {
+            stmt.execute(sql); // any result set is closed by the next execute
+            executed++;
+            onSuccess.accept(sql);
+        } catch (SQLException e) {
+            failed(statementNumber, sql, e);
+        }
+    }
+
+    private void executeBatch(Statement stmt, Consumer<String> onSuccess) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            stmt.executeBatch();
+            executed += batch.size();
+            batch.forEach(onSuccess);
+        } catch (BatchUpdateException e) {
+            // The driver reports one count per statement it got to; anything after the last count never ran.
+            int[] counts = e.getUpdateCounts();
+            SQLException firstError = null;
+            for (int i = 0; i < batch.size(); i++) {
+                if (i < counts.length && counts[i] != Statement.EXECUTE_FAILED) {
+                    executed++;
+                    onSuccess.accept(batch.get(i));
+                } else if (firstError == null) {
+                    firstError = e;
+                    failedInBatch(batchFirstNumber + i, batch.get(i), e);
+                } else {
+                    failedInBatch(batchFirstNumber + i, batch.get(i), null);
+                }
+            }
+        } finally {
+            stmt.clearBatch();
+            batch.clear();
+        }
+    }
+
+    private void failed(long number, String sql, SQLException e) throws SQLException {
+        failed++;
+        log.accept("❌ Statement " + number + " failed: " + e.getMessage() + " [" + abbreviate(sql) + "]");
+        if (stopOnError) {
+            throw new SQLException("Statement " + number + " failed: " + e.getMessage() + " [" + abbreviate(sql) + "]",
+                    e.getSQLState(), e.getErrorCode(), e);
+        }
+    }
+
+    private void failedInBatch(long number, String sql, SQLException e) throws SQLException {
+        if (e != null) {
+            failed(number, sql, e);
+        } else {
+            failed++;
+            log.accept("❌ Statement " + number + " failed or was not run: [" + abbreviate(sql) + "]");
+        }
+    }
+
+    private void reportProgress(long startedAt) {
+        long now = System.nanoTime();
+        if (now - lastProgressAt >= PROGRESS_INTERVAL_NANOS) {
+            lastProgressAt = now;
+            log.accept(String.format("  ... %d statement(s) read, %d executed, %d failed (%.0f s)",
+                    statementNumber, executed, failed, (now - startedAt) / 1e9));
+        }
+    }
+
+    private static boolean returnsRows(String sql) {
+        String keyword = firstWord(sql);
+        return keyword.equals("SELECT") || keyword.equals("SHOW") || keyword.equals("DESCRIBE")
+                || keyword.equals("DESC") || keyword.equals("EXPLAIN") || keyword.equals("WITH")
+                || keyword.equals("CALL");
+    }
+
+    private static String firstWord(String sql) {
+        int end = 0;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) end++;
+        return sql.substring(0, end).toUpperCase(Locale.ROOT);
+    }
+
+    private static String abbreviate(String sql) {
+        String oneLine = sql.substring(0, Math.min(sql.length(), 200)).replaceAll("\\s+", " ");
+        return oneLine.length() <= 80 ? oneLine : oneLine.substring(0, 77) + "...";
+    }
+
+    /** Passes each statement of the script to the consumer as soon as its delimiter has been read. */
+    public static void forEachStatement(Reader reader, SqlConsumer consumer) throws IOException, SQLException {
+        StatementReader statements = new StatementReader(reader);
+        String sql;
+        while ((sql = statements.next()) != null) {
+            consumer.accept(sql);
+        }
+    }
+
+    /**
+     * Incremental statement tokenizer for MySQL scripts, reading through its own buffer.
+     * - Delimiters inside '...', "..." and `...` (with backslash escapes) don't end a statement.
+     * - "-- " and "#" comments run to the end of the line and are dropped, as are block comments. Executable
+     *   comments (/*! ... *&#47; and /*+ ... *&#47;, as written by mysqldump) are kept as part of the statement.
+     * - A line "DELIMITER xx" changes the delimiter, as in the mysql client, so procedure bodies can contain ';'.
+     */
+    public static final class StatementReader {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+
+        private final StringBuilder current = new StringBuilder();
+        private String delimiter = ";";
+        private int plainRun; // chars at the end of current that were read outside quotes and comments
+
+        public StatementReader(Reader reader) {
+            this(reader, ";");
+        }
+
+        /** For reading from the middle of a script, where an earlier DELIMITER line may be in effect. */
+        StatementReader(Reader reader, String delimiter) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+        }
+
+        /** The next non-empty statement without its delimiter, or null at the end of the script. */
+        public String next() throws IOException {
+            int c;
+            while ((c = read()) != -1) {
+                if (c == '\'' || c == '"' || c == '`') {
+                    readQuoted((char) c);
+                } else if (c == '#' || (c == '-' && peek() == '-' && isCommentSpace(peek(1)))) {
+                    skipLine();
+                    current.append('\n');
+                    plainRun = 0;
+                    String directive = delimiterDirective();
+                    if (directive != null) {
+                        delimiter = directive;
+                        current.setLength(0);
+                    }
+                } else if (c == '/' && peek() == '*') {
+                    readBlockComment();
+                } else {
+                    current.append((char) c);
+                    plainRun++;
+                    if (c == '\n') {
+                        String directive = delimiterDirective();
+                        if (directive != null) {
+                            delimiter = directive;
+                            current.setLength(0);
+                            plainRun = 0;
+                            continue;
+                        }
+                    }
+                    if (plainRun >= delimiter.length() && endsWithDelimiter()) {
+                        current.setLength(current.length() - delimiter.length());
+                        String statement = take();
+                        String directive = directiveOf(statement);
+                        if (directive != null) {
+                            if (!directive.isEmpty()) delimiter = directive;
+                        } else if (!statement.isEmpty()) {
+                            return statement;
+                        }
+                    }
+                }
+            }
+            String statement = take();
+            String directive = directiveOf(statement);
+            if (directive != null) {
+                delimiter = directive.isEmpty() ? delimiter : directive;
+                return null;
+            }
+            return statement.isEmpty() ? null : statement;
+        }
+
+        private void readQuoted(char quote) throws IOException {
+            current.append(quote);
+            int c;
+            while ((c = read()) != -1) {
+                current.append((char) c);
+                if (c == '\\' && quote != '`') {
+                    int escaped = read();
+                    if (escaped != -1) current.append((char) escaped);
+                } else if (c == quote) {
+                    break; // a doubled quote simply re-opens on the next character
+                }
+            }
+            plainRun = 0;
+        }
+
+        private void readBlockComment() throws IOException {
+            read(); // the '*'
+            int kind = peek();
+            boolean keep = kind == '!' || kind == '+';
+            if (keep) current.append("/*");
+            int prev = -1;
+            int c;
+            while ((c = read()) != -1) {
+                if (keep) current.append((char) c);
+                if (prev == '*' && c == '/') break;
+                prev = c;
+            }
+            if (!keep) current.append(' ');
+            plainRun = 0;
+        }
+
+        private void skipLine() throws IOException {
+            int c;
+            while ((c = read()) != -1 && c != '\n') { }
+        }
+
+        private boolean endsWithDelimiter() {
+            int offset = current.length() - delimiter.length();
+            for (int i = 0; i < delimiter.length(); i++) {
+                if (Character.toLowerCase(current.charAt(offset + i)) != Character.toLowerCase(delimiter.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Checks the current text at a line end: the new delimiter if it is a DELIMITER line, otherwise null. */
+        private String delimiterDirective() {
+            if (current.length() > 256) {
+                return null; // a real statement, not a one-line directive
+            }
+            String directive = directiveOf(current.toString().trim());
+            return directive == null || directive.isEmpty() ? null : directive;
+        }
+
+        /** The argument of "DELIMITER xx" ("" when missing), or null if the text is not a DELIMITER line. */
+        private static String directiveOf(String text) {
+            if (text.length() < 9 || !text.regionMatches(true, 0, "DELIMITER", 0, 9)) return null;
+            if (text.length() == 9) return "";
+            if (!Character.isWhitespace(text.charAt(9))) return null;
+            String argument = text.substring(10).trim();
+            return argument.indexOf('\n') >= 0 ? null : argument;
+        }
+
+        private String take() {
+            String statement = current.toString().trim();
+            current.setLength(0);
+            plainRun = 0;
+            return statement;
+        }
+
+        private static boolean isCommentSpace(int c) {
+            return c == -1 || Character.isWhitespace(c) || Character.isISOControl(c);
+        }
+
+        private int read() throws IOException {
+            if (position == limit && !fill()) return -1;
+            return buffer[position++];
+        }
+
+        private int peek() throws IOException {
+            return peek(0);
+        }
+
+        private int peek(int ahead) throws IOException {
+            if (position + ahead >= limit) {
+                if (position > 0) {
+                    System.arraycopy(buffer, position, buffer, 0, limit - position);
+                    limit -= position;
+                    position = 0;
+                }
+                while (position + ahead >= limit) {
+                    int n = reader.read(buffer, limit, buffer.length - limit);
+                    if (n == -1) return -1;
+                    limit += n;
+                }
+            }
+            return buffer[position + ahead];
+        }
+
+        private boolean fill() throws IOException {
+            int n;
+            do {
+                n = reader.read(buffer, 0, buffer.length);
+            } while (n == 0);
+            if (n == -1) return false;
+            position = 0;
+            limit = n;
+            return true;
+        }
+    }
+}
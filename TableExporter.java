@@ -0,0 +1,594 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Exports a table to CSV, TSV or a compact binary columnar file. Rows are streamed from a forward-only,
+ * read-only ResultSet straight into a buffered FileChannel and are never collected in memory.
+ * When the table has an integer primary key and parallelism > 1, the key range is split into slices that are
+ * exported over separate connections into part files, which are then concatenated in key order.
+ * <p>
+ * Binary layout (integers are unsigned LEB128 varints unless noted):
+ * <pre>
+ * "FXDBCOL1", columnCount, per column: nameLength, UTF-8 name, kind byte (0 long, 1 double, 2 text, 3 bytes)
+ * blocks of up to 4096 rows: rowCount, then per column: null bitmap (ceil(rowCount / 8) bytes, bit set = NULL),
+ *     valuesLength, values of the non-null cells
+ *     - long: zigzag varint of the difference to the previous non-null value of the block
+ *     - double: 8 bytes, big-endian IEEE 754
+ *     - text/bytes: length, then the UTF-8 text or raw bytes
+ * a rowCount of 0 ends the file
+ * </pre>
+ */
+public class TableExporter {
+    public static final int DEFAULT_PARALLELISM = 4;
+    private static final int MIN_KEYS_PER_SLICE = 10_000;
+    private static final long PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+
+    public enum Format {
+        CSV("csv"), TSV("tsv"), BINARY("fxcol");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        /** The format matching a file name's extension, or null. */
+        public static Format forFileName(String fileName) {
+            String lower = fileName.toLowerCase(Locale.ROOT);
+            for (Format format : values()) {
+                if (lower.endsWith("." + format.extension)) return format;
+            }
+            return null;
+        }
+    }
+
+    public record Report(long rows, long bytes, int slices, long elapsedNanos) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1 << 20);
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final Consumer<String> progress;
+    private final AtomicLong exportedRows = new AtomicLong();
+    private final AtomicLong lastProgressAt = new AtomicLong();
+    private long startedAt;
+
+    public TableExporter(ConnectionPool pool, Consumer<String> progress) {
+        this.pool = pool;
+        this.progress = progress;
+    }
+
+    public Report export(String tableName, String keyColumn, Path target, Format format, int parallelism)
+            throws IOException, SQLException {
+        startedAt = System.nanoTime();
+        lastProgressAt.set(startedAt);
+        exportedRows.set(0);
+
+        List<long[]> slices = parallelism > 1 && keyColumn != null ? keySlices(tableName, keyColumn, parallelism) : List.of();
+        if (slices.size() <= 1) {
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                exportSlice(tableName, keyColumn, null, format, true, channel);
+                writeTrailer(format, channel);
+            }
+            return report(target, 1);
+        }
+
+        List<Path> parts = new ArrayList<>();
+        for (int i = 0; i < slices.size(); i++) {
+            parts.add(target.resolveSibling(target.getFileName() + ".part" + i));
+        }
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < slices.size(); i++) {
+                long[] slice = slices.get(i);
+                Path part = parts.get(i);
+                boolean first = i == 0;
+                futures.add(workers.submit(() -> {
+                    try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)) {
+                        exportSlice(tableName, keyColumn, slice, format, first, channel);
+                    }
+                    return null;
+                }));
+            }
+            try {
+                for (Future<Void> future : futures) {
+                    await(future);
+                }
+            } finally {
+                futures.forEach(f -> f.cancel(true));
+            }
+            concatenate(parts, target, format);
+        } finally {
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        }
+        return report(target, slices.size());
+    }
+
+    private Report report(Path target, int slices) throws IOException {
+        return new Report(exportedRows.get(), Files.size(target), slices, System.nanoTime() - startedAt);
+    }
+
+    /** Splits [MIN(key), MAX(key)] into equal half-open slices; empty if the key isn't an integer or the table is small. */
+    private List<long[]> keySlices(String tableName, String keyColumn, int parallelism) throws SQLException {
+        String sql = "SELECT MIN(`" + keyColumn + "`), MAX(`" + keyColumn + "`) FROM `" + tableName + "`";
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next() || kindOf(rs.getMetaData(), 1) != ColumnarWriter.LONG) {
+                return List.of();
+            }
+            long min = rs.getLong(1);
+            long max = rs.getLong(2);
+            if (rs.wasNull()) {
+                return List.of();
+            }
+            long span = max - min + 1;
+            int count = (int) Math.max(1, Math.min(parallelism, span / MIN_KEYS_PER_SLICE));
+            List<long[]> slices = new ArrayList<>(count);
+            long step = span / count;
+            for (int i = 0; i < count; i++) {
+                long from = min + i * step;
+                long to = i == count - 1 ? max : from + step - 1;
+                slices.add(new long[]{from, to}); // inclusive bounds
+            }
+            return slices;
+        }
+    }
+
+    private void exportSlice(String tableName, String keyColumn, long[] slice, Format format, boolean withHeader,
+                             FileChannel channel) throws SQLException, IOException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM `").append(tableName).append("`");
+        if (slice != null) {
+            sql.append(" WHERE `").append(keyColumn).append("` BETWEEN ? AND ?");
+        }
+        if (keyColumn != null) {
+            sql.append(" ORDER BY `").append(keyColumn).append("`");
+        }
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Integer.MIN_VALUE makes Connector/J stream rows one by one instead of buffering the whole result.
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            if (slice != null) {
+                stmt.setLong(1, slice[0]);
+                stmt.setLong(2, slice[1]);
+            }
+            try (ResultSet rs = stmt.executeQuery();
+                 ChannelOutput out = new ChannelOutput(channel)) {
+                RowWriter writer = format == Format.BINARY ? new ColumnarWriter(out) : new TextWriter(out, format == Format.TSV);
+                writer.start(rs.getMetaData(), withHeader);
+                long rows = 0;
+                while (rs.next()) {
+                    writer.row(rs);
+                    if (++rows % 10_000 == 0) {
+                        reportProgress(exportedRows.addAndGet(10_000));
+                    }
+                }
+                writer.finish();
+                exportedRows.addAndGet(rows % 10_000);
+            }
+        }
+    }
+
+    private void reportProgress(long rows) {
+        long now = System.nanoTime();
+        long last = lastProgressAt.get();
+        if (now - last >= PROGRESS_INTERVAL_NANOS && lastProgressAt.compareAndSet(last, now)) {
+            double seconds = (now - startedAt) / 1e9;
+            progress.accept(String.format("  ... %,d rows exported (%.0f rows/s)", rows, rows / seconds));
+        }
+    }
+
+    private static void concatenate(List<Path> parts, Path target, Format format) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path part : parts) {
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+            writeTrailer(format, out);
+        }
+    }
+
+    private static void writeTrailer(Format format, FileChannel channel) throws IOException {
+        if (format == Format.BINARY) {
+            channel.write(ByteBuffer.wrap(new byte[]{0}));
+        }
+    }
+
+    private static void await(Future<Void> future) throws IOException, SQLException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sql) throw sql;
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static int kindOf(ResultSetMetaData meta, int column) throws SQLException {
+        switch (meta.getColumnType(column)) {
+            case Types.TINYINT: case Types.SMALLINT: case Types.INTEGER:
+                return ColumnarWriter.LONG;
+            case Types.BIGINT:
+                // BIGINT UNSIGNED doesn't fit in a long
+                return meta.getColumnTypeName(column).toUpperCase(Locale.ROOT).contains("UNSIGNED") ? ColumnarWriter.TEXT : ColumnarWriter.LONG;
+            case Types.REAL: case Types.FLOAT: case Types.DOUBLE:
+                return ColumnarWriter.DOUBLE;
+            case Types.BINARY: case Types.VARBINARY: case Types.LONGVARBINARY: case Types.BLOB:
+                return ColumnarWriter.BYTES;
+            default:
+                return ColumnarWriter.TEXT;
+        }
+    }
+
+    private interface RowWriter {
+        void start(ResultSetMetaData meta, boolean withHeader) throws SQLException, IOException;
+
+        void row(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    /** CSV per RFC 4180 (NULL as an empty field), or TSV in MySQL's LOAD DATA style (NULL as \N, backslash escapes). */
+    private static final class TextWriter implements RowWriter {
+        private final ChannelOutput out;
+        private final boolean tsv;
+        private int columnCount;
+
+        TextWriter(ChannelOutput out, boolean tsv) {
+            this.out = out;
+            this.tsv = tsv;
+        }
+
+        @Override
+        public void start(ResultSetMetaData meta, boolean withHeader) throws SQLException, IOException {
+            columnCount = meta.getColumnCount();
+            if (withHeader) {
+                for (int i = 1; i <= columnCount; i++) {
+                    if (i > 1) out.append(tsv ? '\t' : ',');
+                    field(meta.getColumnLabel(i));
+                }
+                endLine();
+            }
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) out.append(tsv ? '\t' : ',');
+                field(rs.getString(i));
+            }
+            endLine();
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        private void endLine() throws IOException {
+            if (tsv) {
+                out.append('\n');
+            } else {
+                out.append('\r');
+                out.append('\n');
+            }
+        }
+
+        private void field(String value) throws IOException {
+            if (tsv) {
+                if (value == null) {
+                    out.append("\\N");
+                    return;
+                }
+                for (int i = 0; i < value.length(); i++) {
+                    char c = value.charAt(i);
+                    switch (c) {
+                        case '\t': out.append("\\t"); break;
+                        case '\n': out.append("\\n"); break;
+                        case '\r': out.append("\\r"); break;
+                        case '\\': out.append("\\\\"); break;
+                        default: out.append(c);
+                    }
+                }
+                return;
+            }
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.append(value);
+                return;
+            }
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') out.append('"');
+                out.append(c);
+            }
+            out.append('"');
+        }
+    }
+
+    /** Buffers up to BLOCK_ROWS rows column by column and writes them as one block (see the class comment). */
+    private static final class ColumnarWriter implements RowWriter {
+        static final byte LONG = 0, DOUBLE = 1, TEXT = 2, BYTES = 3;
+        private static final byte[] MAGIC = "FXDBCOL1".getBytes(StandardCharsets.US_ASCII);
+        private static final int BLOCK_ROWS = 4096;
+
+        private final ChannelOutput out;
+        private byte[] kinds;
+        private byte[][] nullBitmaps;
+        private ByteSink[] values;
+        private long[] previous;
+        private int rows;
+
+        ColumnarWriter(ChannelOutput out) {
+            this.out = out;
+        }
+
+        @Override
+        public void start(ResultSetMetaData meta, boolean withHeader) throws SQLException, IOException {
+            int columnCount = meta.getColumnCount();
+            kinds = new byte[columnCount];
+            nullBitmaps = new byte[columnCount][BLOCK_ROWS / 8];
+            values = new ByteSink[columnCount];
+            previous = new long[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                kinds[i] = (byte) kindOf(meta, i + 1);
+                values[i] = new ByteSink();
+            }
+            if (withHeader) {
+                out.put(MAGIC, 0, MAGIC.length);
+                out.putVarLong(columnCount);
+                for (int i = 0; i < columnCount; i++) {
+                    byte[] name = meta.getColumnLabel(i + 1).getBytes(StandardCharsets.UTF_8);
+                    out.putVarLong(name.length);
+                    out.put(name, 0, name.length);
+                    out.put(kinds[i]);
+                }
+            }
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < kinds.length; i++) {
+                ByteSink sink = values[i];
+                switch (kinds[i]) {
+                    case LONG: {
+                        long value = rs.getLong(i + 1);
+                        if (rs.wasNull()) break;
+                        long delta = value - previous[i];
+                        previous[i] = value;
+                        sink.putVarLong((delta << 1) ^ (delta >> 63));
+                        continue;
+                    }
+                    case DOUBLE: {
+                        double value = rs.getDouble(i + 1);
+                        if (rs.wasNull()) break;
+                        sink.putLong(Double.doubleToRawLongBits(value));
+                        continue;
+                    }
+                    case BYTES: {
+                        byte[] value = rs.getBytes(i + 1);
+                        if (value == null) break;
+                        sink.putVarLong(value.length);
+                        sink.put(value);
+                        continue;
+                    }
+                    default: {
+                        String value = rs.getString(i + 1);
+                        if (value == null) break;
+                        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                        sink.putVarLong(utf8.length);
+                        sink.put(utf8);
+                        continue;
+                    }
+                }
+                nullBitmaps[i][rows >>> 3] |= (byte) (1 << (rows & 7)); // reached only for NULL
+            }
+            if (++rows == BLOCK_ROWS) {
+                writeBlock();
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writeBlock();
+        }
+
+        private void writeBlock() throws IOException {
+            if (rows == 0) {
+                return;
+            }
+            out.putVarLong(rows);
+            int bitmapBytes = (rows + 7) >>> 3;
+            for (int i = 0; i < kinds.length; i++) {
+                out.put(nullBitmaps[i], 0, bitmapBytes);
+                out.putVarLong(values[i].length);
+                out.put(values[i].bytes, 0, values[i].length);
+                Arrays.fill(nullBitmaps[i], (byte) 0);
+                values[i].length = 0;
+                previous[i] = 0;
+            }
+            rows = 0;
+        }
+    }
+
+    /** Growable byte array, reused from block to block. */
+    private static final class ByteSink {
+        byte[] bytes = new byte[16 * 1024];
+        int length;
+
+        void put(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, length, b.length);
+            length += b.length;
+        }
+
+        void putLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (v >>> shift);
+            }
+        }
+
+        void putVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[length++] = (byte) v;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+
+    /**
+     * Buffered writer over a FileChannel: text goes through a reusable CharBuffer and CharsetEncoder, bytes
+     * straight into a 1 MB direct buffer. Closing flushes but leaves the channel open.
+     */
+    private static final class ChannelOutput implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(1 << 20);
+        private final CharBuffer chars = CharBuffer.allocate(8 * 1024);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+        ChannelOutput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void append(char c) throws IOException {
+            if (!chars.hasRemaining()) encodeChars(false);
+            chars.put(c);
+        }
+
+        void append(String s) throws IOException {
+            int from = 0;
+            while (from < s.length()) {
+                if (!chars.hasRemaining()) encodeChars(false);
+                int n = Math.min(chars.remaining(), s.length() - from);
+                chars.put(s, from, from + n);
+                from += n;
+            }
+        }
+
+        void put(byte b) throws IOException {
+            ensure(1);
+            bytes.put(b);
+        }
+
+        void put(byte[] b, int offset, int length) throws IOException {
+            if (chars.position() > 0) encodeChars(false);
+            while (length > 0) {
+                if (!bytes.hasRemaining()) drain();
+                int n = Math.min(bytes.remaining(), length);
+                bytes.put(b, offset, n);
+                offset += n;
+                length -= n;
+            }
+        }
+
+        void putVarLong(long v) throws IOException {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                bytes.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            bytes.put((byte) v);
+        }
+
+        private void ensure(int space) throws IOException {
+            if (chars.position() > 0) encodeChars(false);
+            if (bytes.remaining() < space) drain();
+        }
+
+        private void encodeChars(boolean endOfInput) throws IOException {
+            chars.flip();
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, endOfInput);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isError()) {
+                    result.throwException();
+                } else {
+                    break;
+                }
+            }
+            chars.compact(); // keeps a dangling high surrogate for the next round
+        }
+
+        private void drain() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            encodeChars(true);
+            while (encoder.flush(bytes).isOverflow()) {
+                drain();
+            }
+            drain();
+            encoder.reset();
+        }
+    }
+}
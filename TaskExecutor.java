@@ -0,0 +1,128 @@
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs FxDb's database work on virtual threads.
+ * - At most maxConcurrent tasks touch the database at once (the rest wait cheaply on a semaphore).
+ * - Tasks sharing a serial key (FxDb uses the table name) run one after another in submission order,
+ *   so a burst of cell edits on one table is applied in the order the user made them.
+ * - Every finished task reports how long it queued and ran, and running totals are kept for the log.
+ * Tasks are FutureTasks (javafx.concurrent.Task is one), so cancelling a task before it starts skips it.
+ */
+public class TaskExecutor {
+
+    /** How one task went; handed to the completion listener on the worker thread. */
+    public record Timing(String name, long queuedNanos, long runNanos, boolean failed, boolean cancelled) {
+        public double queuedMillis() { return queuedNanos / 1e6; }
+        public double runMillis() { return runNanos / 1e6; }
+    }
+
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final Map<String, CompletableFuture<Void>> serialTails = new ConcurrentHashMap<>();
+    private final Consumer<Timing> listener;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    public TaskExecutor(int maxConcurrent, Consumer<Timing> listener) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.listener = listener;
+    }
+
+    /**
+     * Queues a task. With a serialKey it starts only after every earlier task with the same key has finished
+     * (successfully or not); with null it starts as soon as a permit is free.
+     */
+    public void submit(String name, String serialKey, FutureTask<?> task) {
+        long queuedAt = System.nanoTime();
+        Runnable body = () -> runWithPermit(name, queuedAt, task);
+        if (serialKey == null) {
+            threads.execute(body);
+            return;
+        }
+        CompletableFuture<Void> next = serialTails.compute(serialKey, (key, tail) ->
+                (tail == null ? CompletableFuture.<Void>completedFuture(null) : tail)
+                        .handle((r, e) -> null)
+                        .thenRunAsync(body, threads));
+        // Registered outside compute(): the callback may fire immediately and must not re-enter the map.
+        next.whenComplete((r, e) -> serialTails.remove(serialKey, next));
+    }
+
+    /** An Executor view for fire-and-forget work (e.g. page prefetches) that still respects the concurrency limit. */
+    public Executor asExecutor() {
+        return command -> threads.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                command.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    public String summary() {
+        long done = completed.get();
+        double avg = done == 0 ? 0 : totalRunNanos.get() / 1e6 / done;
+        return String.format("%d tasks completed (%d failed, %d cancelled), avg %.1f ms, max %.1f ms",
+                done, failed.get(), cancelled.get(), avg, maxRunNanos.get() / 1e6);
+    }
+
+    public void shutdown() {
+        threads.shutdownNow();
+    }
+
+    private void runWithPermit(String name, long queuedAt, FutureTask<?> task) {
+        if (task.isCancelled()) {
+            cancelled.incrementAndGet();
+            return; // superseded while waiting in line; don't spend a permit on it
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            task.cancel(false);
+            cancelled.incrementAndGet();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            permits.release();
+        }
+        long runNanos = System.nanoTime() - startedAt;
+
+        boolean wasCancelled = task.isCancelled();
+        boolean wasFailed = false;
+        if (!wasCancelled) {
+            try {
+                task.get();
+            } catch (Exception e) {
+                wasFailed = true;
+            }
+        }
+        if (wasCancelled) cancelled.incrementAndGet();
+        if (wasFailed) failed.incrementAndGet();
+        completed.incrementAndGet();
+        totalRunNanos.addAndGet(runNanos);
+        maxRunNanos.accumulateAndGet(runNanos, Math::max);
+        listener.accept(new Timing(name, startedAt - queuedAt, runNanos, wasFailed, wasCancelled));
+    }
+}